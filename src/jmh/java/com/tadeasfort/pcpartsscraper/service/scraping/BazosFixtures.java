@@ -0,0 +1,34 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Saved Bazos pages from src/test/resources/replay/bazos
+ */
+final class BazosFixtures {
+
+    private BazosFixtures() {
+    }
+
+    static byte[] load(String name) {
+        String path = "/replay/bazos/" + name + ".html";
+        try (InputStream in = BazosFixtures.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + path);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Fixture wrapped the way {@link PageFetcher} hands pages to the parser
+     */
+    static PageFetcher.FetchResult page(String name, String url) {
+        return new PageFetcher.FetchResult(url, 200, load(name), StandardCharsets.UTF_8, false, 0);
+    }
+}
@@ -0,0 +1,42 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Listing URL discovery on a category list page
+ */
+@State(Scope.Benchmark)
+public class ListPageBenchmark {
+
+    private static final String BASE_URL = "https://pc.bazos.cz";
+
+    @Param({ "gpu", "cpu", "ram", "notebook" })
+    public String category;
+
+    private PageFetcher.FetchResult page;
+    private Document document;
+
+    @Setup
+    public void setUp() throws IOException {
+        page = BazosFixtures.page("list-" + category, BASE_URL + "/" + category + "/");
+        document = page.parse();
+    }
+
+    @Benchmark
+    public List<String> extractListingUrls() {
+        return BazosScrapingService.extractListingUrls(document, BASE_URL);
+    }
+
+    @Benchmark
+    public List<String> parseAndExtractListingUrls() throws IOException {
+        return BazosScrapingService.extractListingUrls(page.parse(), BASE_URL);
+    }
+}
@@ -0,0 +1,99 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.ListingIdentity;
+import com.tadeasfort.pcpartsscraper.model.Part;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Detail page parsing: each field extractor on its own, the single-pass
+ * extractor, the listing hash and the whole page -> {@link Part} path
+ */
+@State(Scope.Benchmark)
+public class ListingParseBenchmark {
+
+    private static final String URL = "https://pc.bazos.cz/inzerat/190123456/fixture.php";
+    private static final BigDecimal PRICE = new BigDecimal("7490");
+
+    @Param({ "gpu", "cpu", "ram", "notebook" })
+    public String category;
+
+    private PageFetcher.FetchResult page;
+    private String text;
+    private final ListingFieldExtractor.ListingFields fields = new ListingFieldExtractor.ListingFields();
+    private final BazosListingParser streamingParser = new BazosListingParser(true);
+    private final BazosListingParser domParser = new BazosListingParser(false);
+
+    @Setup
+    public void setUp() throws IOException {
+        page = BazosFixtures.page("detail-" + category, URL);
+        text = page.parse().body().wholeText();
+    }
+
+    @Benchmark
+    public ListingFieldExtractor.ListingFields extractAllFields() {
+        return ListingFieldExtractor.extract(text, fields);
+    }
+
+    @Benchmark
+    public BigDecimal extractPrice() {
+        return ListingFieldExtractor.extractPrice(text);
+    }
+
+    @Benchmark
+    public String extractLocation() {
+        return ListingFieldExtractor.extractLocation(text);
+    }
+
+    @Benchmark
+    public String extractDescription() {
+        return ListingFieldExtractor.extractDescription(text);
+    }
+
+    @Benchmark
+    public LocalDateTime extractDateCreated() {
+        return ListingFieldExtractor.extractDateCreated(text);
+    }
+
+    @Benchmark
+    public String extractSellerName() {
+        return ListingFieldExtractor.extractSellerName(text);
+    }
+
+    @Benchmark
+    public String extractPhone() {
+        return ListingFieldExtractor.extractPhone(text);
+    }
+
+    @Benchmark
+    public Integer extractViewCount() {
+        return ListingFieldExtractor.extractViewCount(text);
+    }
+
+    @Benchmark
+    public String extractExternalId() {
+        return BazosListingParser.extractExternalId(URL);
+    }
+
+    @Benchmark
+    public ListingIdentity listingIdentity() {
+        return ListingIdentity.compute("bazos", "190123456", category, PRICE);
+    }
+
+    @Benchmark
+    public Part parseListingStreaming() {
+        return streamingParser.parse(URL, page, Part.PartType.GPU);
+    }
+
+    @Benchmark
+    public Part parseListingDom() {
+        return domParser.parse(URL, page, Part.PartType.GPU);
+    }
+}
@@ -0,0 +1,27 @@
+package com.tadeasfort.pcpartsscraper.actuator;
+
+import com.tadeasfort.pcpartsscraper.service.scraping.ScrapingClusterStatus;
+import lombok.RequiredArgsConstructor;
+import org.quartz.SchedulerException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint showing the scheduler nodes, their heartbeats and which
+ * node owns each category (/actuator/cluster)
+ */
+@Component
+@Endpoint(id = "cluster")
+@RequiredArgsConstructor
+public class ClusterEndpoint {
+
+    private final ScrapingClusterStatus clusterStatus;
+
+    @ReadOperation
+    public Map<String, Object> status() throws SchedulerException {
+        return clusterStatus.getStatus();
+    }
+}
@@ -0,0 +1,57 @@
+package com.tadeasfort.pcpartsscraper.actuator;
+
+import com.tadeasfort.pcpartsscraper.jfr.FlightRecordings;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the JDK Flight Recorder recording
+ * (/actuator/flightrecording). A POST with {@code {"action": "start"}},
+ * {@code "dump"} or {@code "stop"} controls it; dump and stop return the
+ * written file.
+ */
+@Component
+@Endpoint(id = "flightrecording")
+@RequiredArgsConstructor
+public class FlightRecordingEndpoint {
+
+    private final FlightRecordings flightRecordings;
+
+    @ReadOperation
+    public Map<String, Object> status() throws IOException {
+        return flightRecordings.getStatus();
+    }
+
+    @WriteOperation
+    public Map<String, Object> control(String action) throws IOException, ParseException {
+        Map<String, Object> status;
+        switch (action) {
+            case "start" -> {
+                boolean started = flightRecordings.start();
+                status = status();
+                status.put("started", started);
+            }
+            case "dump" -> {
+                Path file = flightRecordings.dump();
+                status = status();
+                status.put("file", file != null ? file.toAbsolutePath().toString() : null);
+            }
+            case "stop" -> {
+                Path file = flightRecordings.stop();
+                status = status();
+                status.put("file", file != null ? file.toAbsolutePath().toString() : null);
+            }
+            default -> throw new IllegalArgumentException(
+                    "Unknown action '" + action + "', expected start, dump or stop");
+        }
+        return status;
+    }
+}
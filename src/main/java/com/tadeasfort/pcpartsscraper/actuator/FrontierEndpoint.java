@@ -0,0 +1,26 @@
+package com.tadeasfort.pcpartsscraper.actuator;
+
+import com.tadeasfort.pcpartsscraper.service.scraping.CrawlFrontierWorker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint with the waiting, claimed and failed URLs in the crawl
+ * frontier per marketplace (/actuator/frontier)
+ */
+@Component
+@Endpoint(id = "frontier")
+@RequiredArgsConstructor
+public class FrontierEndpoint {
+
+    private final CrawlFrontierWorker frontierWorker;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return frontierWorker.getStats();
+    }
+}
@@ -0,0 +1,26 @@
+package com.tadeasfort.pcpartsscraper.actuator;
+
+import com.tadeasfort.pcpartsscraper.service.scraping.MarketplaceCrawlScheduler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint listing the discovered marketplaces and how many of their
+ * categories are being crawled (/actuator/marketplaces)
+ */
+@Component
+@Endpoint(id = "marketplaces")
+@RequiredArgsConstructor
+public class MarketplacesEndpoint {
+
+    private final MarketplaceCrawlScheduler crawlScheduler;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return crawlScheduler.getStats();
+    }
+}
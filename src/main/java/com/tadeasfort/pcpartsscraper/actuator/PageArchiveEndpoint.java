@@ -0,0 +1,42 @@
+package com.tadeasfort.pcpartsscraper.actuator;
+
+import com.tadeasfort.pcpartsscraper.service.scraping.ListingReparseService;
+import com.tadeasfort.pcpartsscraper.service.scraping.PageArchive;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the raw page archive (/actuator/pagearchive).
+ * A POST starts a reparse of the whole archive in the background.
+ */
+@Component
+@Endpoint(id = "pagearchive")
+@RequiredArgsConstructor
+public class PageArchiveEndpoint {
+
+    private final PageArchive pageArchive;
+    private final ListingReparseService reparseService;
+
+    @ReadOperation
+    public Map<String, Object> stats() throws IOException {
+        Map<String, Object> stats = new LinkedHashMap<>(pageArchive.getStats());
+        stats.put("reparseRunning", reparseService.isRunning());
+        stats.put("lastReparse", reparseService.getLastRun());
+        return stats;
+    }
+
+    @WriteOperation
+    public Map<String, Object> reparse() throws IOException {
+        boolean started = reparseService.start();
+        Map<String, Object> stats = stats();
+        stats.put("reparseStarted", started);
+        return stats;
+    }
+}
@@ -0,0 +1,33 @@
+package com.tadeasfort.pcpartsscraper.actuator;
+
+import com.tadeasfort.pcpartsscraper.service.scraping.SeenListingFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing the seen listing Bloom filters
+ * (/actuator/seenlistings)
+ */
+@Component
+@Endpoint(id = "seenlistings")
+@RequiredArgsConstructor
+public class SeenListingsEndpoint {
+
+    private final SeenListingFilter seenListingFilter;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return seenListingFilter.getStats();
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        seenListingFilter.rebuild();
+        return seenListingFilter.getStats();
+    }
+}
@@ -1,12 +1,17 @@
 package com.tadeasfort.pcpartsscraper.config;
 
 import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.service.scraping.AdaptiveScrapeInterval;
 import com.tadeasfort.pcpartsscraper.service.scraping.CategoryScrapingJob;
+import com.tadeasfort.pcpartsscraper.service.scraping.MarketplaceCrawlScheduler;
+import com.tadeasfort.pcpartsscraper.service.scraping.MarketplaceService;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
 import org.quartz.impl.matchers.GroupMatcher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.quartz.JobStoreType;
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
@@ -14,13 +19,17 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.quartz.SchedulerFactoryBean;
 import org.springframework.scheduling.quartz.SpringBeanJobFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 
 @Configuration
@@ -30,37 +39,26 @@ public class QuartzConfig {
     @Autowired
     private ApplicationContext applicationContext;
 
-    @Value("${app.scraping.bazos.interval-hours:3}")
-    private int intervalHours;
+    @Autowired
+    private QuartzProperties quartzProperties;
+
+    @Autowired
+    private DataSource dataSource;
 
-    @Value("${app.scraping.bazos.max-concurrent-categories:5}")
-    private int maxConcurrentCategories;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MarketplaceCrawlScheduler crawlScheduler;
+
+    @Autowired
+    private AdaptiveScrapeInterval adaptiveInterval;
 
     @Value("${app.scraping.bazos.stagger-start:true}")
     private boolean staggerStart;
 
-    // Category mappings - same as in Bazos service
-    private static final Map<Part.PartType, String> CATEGORY_MAPPINGS = new HashMap<>();
-    static {
-        CATEGORY_MAPPINGS.put(Part.PartType.GPU, "graficka");
-        CATEGORY_MAPPINGS.put(Part.PartType.STORAGE_HDD, "hdd");
-        CATEGORY_MAPPINGS.put(Part.PartType.CONSOLE, "playstation");
-        CATEGORY_MAPPINGS.put(Part.PartType.COOLING, "chladic");
-        CATEGORY_MAPPINGS.put(Part.PartType.KEYBOARD, "klavesnice");
-        CATEGORY_MAPPINGS.put(Part.PartType.MONITOR, "monitor");
-        CATEGORY_MAPPINGS.put(Part.PartType.MODEM, "modem");
-        CATEGORY_MAPPINGS.put(Part.PartType.LAPTOP, "notebook");
-        CATEGORY_MAPPINGS.put(Part.PartType.RAM, "pamet");
-        CATEGORY_MAPPINGS.put(Part.PartType.OTHER, "pc");
-        CATEGORY_MAPPINGS.put(Part.PartType.CPU, "procesor");
-        CATEGORY_MAPPINGS.put(Part.PartType.NETWORKING, "sit");
-        CATEGORY_MAPPINGS.put(Part.PartType.SCANNER, "scaner");
-        CATEGORY_MAPPINGS.put(Part.PartType.CASE, "case");
-        CATEGORY_MAPPINGS.put(Part.PartType.TABLET, "tablet");
-        CATEGORY_MAPPINGS.put(Part.PartType.WIFI, "wifi");
-        CATEGORY_MAPPINGS.put(Part.PartType.MOTHERBOARD, "motherboard");
-        CATEGORY_MAPPINGS.put(Part.PartType.AUDIO_CARD, "sound");
-    }
+    @Value("${app.scraping.scheduler.auto-startup:true}")
+    private boolean autoStartup;
 
     @Bean
     public SpringBeanJobFactory springBeanJobFactory() {
@@ -74,8 +72,24 @@ public class QuartzConfig {
         SchedulerFactoryBean factory = new SchedulerFactoryBean();
         factory.setJobFactory(springBeanJobFactory());
 
-        // Enable automatic startup
-        factory.setAutoStartup(true);
+        // This bean replaces Boot's scheduler, so apply the spring.quartz.* settings here
+        boolean jdbcStore = quartzProperties.getJobStoreType() == JobStoreType.JDBC;
+        Properties properties = new Properties();
+        quartzProperties.getProperties().forEach((key, value) -> {
+            // The JDBC store settings don't apply to the in-memory store used by tests
+            if (jdbcStore || !key.startsWith("org.quartz.jobStore.")) {
+                properties.setProperty(key, value);
+            }
+        });
+        factory.setQuartzProperties(properties);
+        if (jdbcStore) {
+            // Shared JDBC store - with isClustered every node sees the same jobs and each trigger fires once
+            factory.setDataSource(dataSource);
+            factory.setTransactionManager(transactionManager);
+        }
+
+        // Start firing jobs once the context is up - disabled when crawls are driven manually (replay, tests)
+        factory.setAutoStartup(autoStartup);
 
         // Wait for jobs to complete on shutdown
         factory.setWaitForJobsToCompleteOnShutdown(true);
@@ -88,7 +102,8 @@ public class QuartzConfig {
     public void initializeScrapingJobs() throws SchedulerException {
         Scheduler scheduler = schedulerFactoryBean().getScheduler();
 
-        log.info("Initializing scraping jobs with JDBC persistence...");
+        log.info("Initializing scraping jobs on node {} ({} job store)...", scheduler.getSchedulerInstanceId(),
+                quartzProperties.getJobStoreType());
 
         // Check for existing jobs and their states
         Set<JobKey> existingJobs = scheduler.getJobKeys(GroupMatcher.jobGroupEquals("scraping"));
@@ -97,11 +112,31 @@ public class QuartzConfig {
         // Handle job recovery
         handleJobRecovery(scheduler);
 
-        // Create/update jobs for each category
-        createOrUpdateCategoryJobs(scheduler);
+        // Create/update jobs for each category of every enabled marketplace
+        Set<JobKey> scheduledJobs = new HashSet<>();
+        for (MarketplaceService marketplace : crawlScheduler.getMarketplaces()) {
+            if (!marketplace.isScrapingEnabled()) {
+                log.info("Scraping is disabled for {}, not scheduling its categories", marketplace.getMarketplaceName());
+                continue;
+            }
+            scheduledJobs.addAll(createOrUpdateCategoryJobs(scheduler, marketplace));
+        }
 
-        log.info("Scraping jobs initialization completed. Concurrent execution enabled with max {} categories.",
-                maxConcurrentCategories);
+        removeStaleJobs(scheduler, existingJobs, scheduledJobs);
+
+        log.info("Scraping jobs initialization completed. Concurrent categories per marketplace: {}",
+                crawlScheduler.getStats());
+    }
+
+    // Jobs of categories or marketplaces that are no longer configured, and jobs with the old per-category keys
+    private void removeStaleJobs(Scheduler scheduler, Set<JobKey> existingJobs, Set<JobKey> scheduledJobs)
+            throws SchedulerException {
+        for (JobKey jobKey : existingJobs) {
+            if (!scheduledJobs.contains(jobKey)) {
+                log.info("Removing scraping job {} - its category is no longer scheduled", jobKey.getName());
+                scheduler.deleteJob(jobKey);
+            }
+        }
     }
 
     private void handleJobRecovery(Scheduler scheduler) throws SchedulerException {
@@ -118,22 +153,45 @@ public class QuartzConfig {
         // Jobs marked as "requests recovery" will be re-executed automatically
     }
 
-    private void createOrUpdateCategoryJobs(Scheduler scheduler) throws SchedulerException {
+    private Set<JobKey> createOrUpdateCategoryJobs(Scheduler scheduler, MarketplaceService marketplace)
+            throws SchedulerException {
         LocalDateTime now = LocalDateTime.now();
+        String marketplaceName = marketplace.getMarketplaceName();
+        int intervalHours = crawlScheduler.getIntervalHours(marketplaceName);
+        int maxConcurrentCategories = crawlScheduler.getMaxConcurrentCategories(marketplaceName);
+        // Each marketplace is staggered on its own - they don't share a host, so they may start together
         int staggerIndex = 0;
+        Set<JobKey> jobKeys = new HashSet<>();
 
-        for (Map.Entry<Part.PartType, String> entry : CATEGORY_MAPPINGS.entrySet()) {
+        for (Map.Entry<Part.PartType, String> entry : marketplace.getCategories().entrySet()) {
             Part.PartType partType = entry.getKey();
             String categoryPath = entry.getValue();
 
-            String jobId = "scrapingJob_" + partType.name();
-            String triggerId = "scrapingTrigger_" + partType.name();
+            String jobId = "scrapingJob_" + marketplaceName + "_" + partType.name();
+            String triggerId = "scrapingTrigger_" + marketplaceName + "_" + partType.name();
             JobKey jobKey = new JobKey(jobId, "scraping");
             TriggerKey triggerKey = new TriggerKey(triggerId, "scraping");
+            jobKeys.add(jobKey);
 
             // Check if job already exists
             boolean jobExists = scheduler.checkExists(jobKey);
 
+            // Keep the interval the category has adapted to across restarts
+            JobDataMap adaptiveState = new JobDataMap();
+            long intervalMinutes = intervalHours * 60L;
+            if (jobExists && adaptiveInterval.isEnabled()) {
+                JobDataMap existingData = scheduler.getJobDetail(jobKey).getJobDataMap();
+                for (String key : List.of(AdaptiveScrapeInterval.ARRIVAL_RATE_KEY, AdaptiveScrapeInterval.INTERVAL_KEY,
+                        "lastExecutionStart")) {
+                    if (existingData.containsKey(key)) {
+                        adaptiveState.put(key, existingData.get(key));
+                    }
+                }
+                if (existingData.containsKey(AdaptiveScrapeInterval.INTERVAL_KEY)) {
+                    intervalMinutes = existingData.getLong(AdaptiveScrapeInterval.INTERVAL_KEY);
+                }
+            }
+
             if (jobExists) {
                 // Check the last execution time
                 Trigger existingTrigger = scheduler.getTrigger(triggerKey);
@@ -142,26 +200,28 @@ public class QuartzConfig {
                 if (lastFireTime != null) {
                     LocalDateTime lastExecution = lastFireTime.toInstant().atZone(ZoneId.systemDefault())
                             .toLocalDateTime();
-                    LocalDateTime nextExpectedRun = lastExecution.plusHours(intervalHours);
+                    LocalDateTime nextExpectedRun = lastExecution.plusMinutes(intervalMinutes);
 
                     if (now.isBefore(nextExpectedRun)) {
-                        log.info("Job {} last ran at {}, next run scheduled for {}. Keeping existing schedule.",
-                                partType, lastExecution, nextExpectedRun);
+                        log.info("Job {} {} last ran at {}, next run scheduled for {}. Keeping existing schedule.",
+                                marketplaceName, partType, lastExecution, nextExpectedRun);
                         continue; // Keep existing job and schedule
                     }
                 }
 
-                log.info("Updating existing job for category: {}", partType);
+                log.info("Updating existing job for {} category: {}", marketplaceName, partType);
             } else {
-                log.info("Creating new job for category: {}", partType);
+                log.info("Creating new job for {} category: {}", marketplaceName, partType);
             }
 
             // Define the job with recovery enabled
             JobDetail categoryJob = JobBuilder.newJob(CategoryScrapingJob.class)
                     .withIdentity(jobKey)
-                    .withDescription("Scrapes " + partType.getDisplayName() + " from Bazos.cz")
+                    .withDescription("Scrapes " + partType.getDisplayName() + " from " + marketplaceName)
+                    .usingJobData("marketplace", marketplaceName)
                     .usingJobData("partType", partType.name())
                     .usingJobData("categoryPath", categoryPath)
+                    .usingJobData(adaptiveState)
                     .storeDurably(true)
                     .requestRecovery(true) // Enable automatic recovery if job fails due to system crash
                     .build();
@@ -181,11 +241,11 @@ public class QuartzConfig {
             // Define the trigger
             Trigger categoryTrigger = TriggerBuilder.newTrigger()
                     .withIdentity(triggerKey)
-                    .withDescription(
-                            "Triggers " + partType.getDisplayName() + " scraping every " + intervalHours + " hours")
+                    .withDescription("Triggers " + partType.getDisplayName() + " scraping every "
+                            + intervalMinutes + " minutes")
                     .forJob(categoryJob)
                     .withSchedule(SimpleScheduleBuilder.simpleSchedule()
-                            .withIntervalInHours(intervalHours)
+                            .withIntervalInMinutes((int) intervalMinutes)
                             .repeatForever()
                             .withMisfireHandlingInstructionFireNow()) // Fire immediately if missed
                     .startAt(startTime)
@@ -196,11 +256,18 @@ public class QuartzConfig {
                 scheduler.addJob(categoryJob, true); // Replace existing job
                 scheduler.rescheduleJob(triggerKey, categoryTrigger);
             } else {
-                scheduler.scheduleJob(categoryJob, categoryTrigger);
+                try {
+                    scheduler.scheduleJob(categoryJob, categoryTrigger);
+                } catch (ObjectAlreadyExistsException e) {
+                    // Another cluster node starting at the same time got there first
+                    log.info("Job for {} category {} was just created by another node", marketplaceName, partType);
+                    continue;
+                }
             }
 
-            log.debug("Scheduled {} to start at {} with {} hour intervals",
-                    partType, startTime, intervalHours);
+            log.debug("Scheduled {} {} to start at {} with {} minute intervals",
+                    marketplaceName, partType, startTime, intervalMinutes);
         }
+        return jobKeys;
     }
 }
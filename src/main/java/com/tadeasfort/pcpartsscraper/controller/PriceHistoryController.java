@@ -0,0 +1,26 @@
+package com.tadeasfort.pcpartsscraper.controller;
+
+import com.tadeasfort.pcpartsscraper.model.PricePoint;
+import com.tadeasfort.pcpartsscraper.repository.PartRepository;
+import com.tadeasfort.pcpartsscraper.service.PriceHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/parts")
+@RequiredArgsConstructor
+public class PriceHistoryController {
+
+    private final PartRepository partRepository;
+    private final PriceHistoryService priceHistoryService;
+
+    @GetMapping("/{id}/price-history")
+    public ResponseEntity<List<PricePoint>> getPriceHistory(@PathVariable Long id) {
+        return partRepository.findById(id)
+                .map(part -> ResponseEntity.ok(priceHistoryService.getHistory(part)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
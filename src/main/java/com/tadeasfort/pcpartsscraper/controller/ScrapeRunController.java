@@ -0,0 +1,36 @@
+package com.tadeasfort.pcpartsscraper.controller;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.model.ScrapeRun;
+import com.tadeasfort.pcpartsscraper.service.scraping.ScrapeRunService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/scrape-runs")
+@RequiredArgsConstructor
+public class ScrapeRunController {
+
+    private final ScrapeRunService scrapeRunService;
+
+    @GetMapping
+    public List<ScrapeRun> getRuns(
+            @RequestParam(required = false) String marketplace,
+            @RequestParam(required = false) Part.PartType category,
+            @RequestParam(defaultValue = "50") int limit) {
+        return scrapeRunService.findRecent(emptyToNull(marketplace), category, Math.min(limit, 1000));
+    }
+
+    @GetMapping("/trends")
+    public List<ScrapeRunService.CategoryTrend> getTrends(
+            @RequestParam(required = false) String marketplace,
+            @RequestParam(defaultValue = "14") int days) {
+        return scrapeRunService.getTrends(emptyToNull(marketplace), Math.min(days, 365));
+    }
+
+    private static String emptyToNull(String value) {
+        return value != null && value.trim().isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,54 @@
+package com.tadeasfort.pcpartsscraper.controller;
+
+import com.tadeasfort.pcpartsscraper.service.scraping.MarketplaceCrawlScheduler;
+import com.tadeasfort.pcpartsscraper.service.scraping.MarketplaceService;
+import com.tadeasfort.pcpartsscraper.service.scraping.ScrapeRunService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+@Controller
+@RequestMapping("/scrape-runs")
+@RequiredArgsConstructor
+public class ScrapeRunDashboardController {
+
+    private static final int RECENT_RUNS = 25;
+
+    private final ScrapeRunService scrapeRunService;
+    private final MarketplaceCrawlScheduler crawlScheduler;
+
+    @GetMapping
+    public String scrapeRuns(
+            @RequestParam(required = false) String marketplace,
+            @RequestParam(defaultValue = "14") int days,
+            Model model) {
+        model.addAttribute("currentPage", "scrape-runs");
+        model.addAttribute("title", "Scrape Runs");
+        model.addAttribute("marketplaces", crawlScheduler.getMarketplaces().stream()
+                .map(MarketplaceService::getMarketplaceName)
+                .toList());
+        model.addAttribute("currentMarketplace", marketplace);
+        model.addAttribute("currentDays", days);
+        addRuns(marketplace, days, model);
+        return "scrape-runs";
+    }
+
+    @GetMapping("/fragment")
+    public String scrapeRunsFragment(
+            @RequestParam(required = false) String marketplace,
+            @RequestParam(defaultValue = "14") int days,
+            Model model) {
+        addRuns(marketplace, days, model);
+        return "fragments/scrape-run-trends";
+    }
+
+    private void addRuns(String marketplace, int days, Model model) {
+        String marketplaceParam = (marketplace != null && marketplace.trim().isEmpty()) ? null : marketplace;
+        int window = Math.max(1, Math.min(days, 365));
+        model.addAttribute("trends", scrapeRunService.getTrends(marketplaceParam, window));
+        model.addAttribute("recentRuns", scrapeRunService.findRecent(marketplaceParam, null, RECENT_RUNS));
+    }
+}
@@ -0,0 +1,165 @@
+package com.tadeasfort.pcpartsscraper.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The in-process JDK Flight Recorder recording.
+ * <p>
+ * A recording runs with one of the JDK's predefined settings ({@code default}
+ * or {@code profile}) plus the scraper's own events, keeping the last
+ * {@code max-age-minutes} in a ring buffer on disk. Dumps are written to
+ * {@code app.jfr.dump-dir} and can be opened in JDK Mission Control, where
+ * page fetches, parses and ingest transactions line up with GC pauses, lock
+ * contention and thread states.
+ */
+@Component
+@Slf4j
+public class FlightRecordings {
+
+    private static final String RECORDING_NAME = "pcpartsscraper";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final List<Class<? extends Event>> EVENTS = List.of(PageFetchEvent.class,
+            ListingParseEvent.class, PartIngestEvent.class, PartQueryEvent.class);
+
+    @Value("${app.jfr.settings:default}")
+    private String settings;
+
+    @Value("${app.jfr.dump-dir:data/recordings}")
+    private String dumpDir;
+
+    @Value("${app.jfr.max-age-minutes:30}")
+    private long maxAgeMinutes;
+
+    @Value("${app.jfr.max-size-mb:250}")
+    private long maxSizeMb;
+
+    @Value("${app.jfr.start-on-startup:false}")
+    private boolean startOnStartup;
+
+    private Recording recording;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIfConfigured() throws IOException, ParseException {
+        if (startOnStartup) {
+            start();
+        }
+    }
+
+    /**
+     * Start a recording
+     *
+     * @return false if one is already running
+     */
+    public synchronized boolean start() throws IOException, ParseException {
+        if (isRunning()) {
+            return false;
+        }
+
+        Recording newRecording = new Recording(Configuration.getConfiguration(settings));
+        newRecording.setName(RECORDING_NAME);
+        newRecording.setToDisk(true);
+        newRecording.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+        newRecording.setMaxSize(maxSizeMb * 1024 * 1024);
+        for (Class<? extends Event> event : EVENTS) {
+            newRecording.enable(event).withoutStackTrace();
+        }
+        newRecording.start();
+        recording = newRecording;
+        log.info("Started flight recording with '{}' settings, keeping the last {} minutes", settings,
+                maxAgeMinutes);
+        return true;
+    }
+
+    /**
+     * Write what the running recording holds to a file in the dump directory
+     *
+     * @return written file, null if no recording is running
+     */
+    public synchronized Path dump() throws IOException {
+        if (!isRunning()) {
+            return null;
+        }
+
+        Path directory = Paths.get(dumpDir);
+        Files.createDirectories(directory);
+        Path file = directory.resolve(RECORDING_NAME + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+        recording.dump(file);
+        log.info("Dumped flight recording to {}", file.toAbsolutePath());
+        return file;
+    }
+
+    /**
+     * Dump and stop the running recording
+     *
+     * @return written file, null if no recording was running
+     */
+    public synchronized Path stop() throws IOException {
+        Path file = dump();
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        return file;
+    }
+
+    public synchronized boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    public synchronized Map<String, Object> getStatus() throws IOException {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", isRunning());
+        status.put("settings", settings);
+        status.put("maxAgeMinutes", maxAgeMinutes);
+        if (isRunning()) {
+            status.put("startTime", recording.getStartTime());
+            status.put("size", recording.getSize());
+        }
+        status.put("dumpDir", Paths.get(dumpDir).toAbsolutePath().toString());
+        status.put("dumps", listDumps());
+        return status;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private List<String> listDumps() throws IOException {
+        Path directory = Paths.get(dumpDir);
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".jfr"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.tadeasfort.pcpartsscraper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Parsing one downloaded listing page into a part
+ */
+@Name("pcpartsscraper.ListingParse")
+@Label("Listing Parse")
+@Category({ "PC Parts Scraper", "Scraping" })
+@Description("Parsing a listing detail page")
+@StackTrace(false)
+public class ListingParseEvent extends Event {
+
+    @Label("URL")
+    public String url;
+
+    @Label("Category")
+    public String category;
+
+    @Label("Page Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Parsed")
+    @Description("False if the page was not a usable listing")
+    public boolean parsed;
+}
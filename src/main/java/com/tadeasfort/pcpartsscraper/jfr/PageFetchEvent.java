@@ -0,0 +1,40 @@
+package com.tadeasfort.pcpartsscraper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One HTTP request of {@code PageFetcher}, from sending it to having the whole
+ * body. Waiting for the host's rate limiter is not included.
+ */
+@Name("pcpartsscraper.PageFetch")
+@Label("Page Fetch")
+@Category({ "PC Parts Scraper", "Scraping" })
+@Description("HTTP request for a marketplace page")
+@StackTrace(false)
+public class PageFetchEvent extends Event {
+
+    @Label("URL")
+    public String url;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Body Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Not Modified")
+    public boolean notModified;
+
+    @Label("Via Proxy")
+    public boolean viaProxy;
+
+    @Label("Error")
+    public String error;
+}
@@ -0,0 +1,35 @@
+package com.tadeasfort.pcpartsscraper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One ingest transaction writing a batch of scraped parts
+ */
+@Name("pcpartsscraper.PartIngest")
+@Label("Part Ingest")
+@Category({ "PC Parts Scraper", "Persistence" })
+@Description("Transaction inserting new and updating changed listings")
+@StackTrace(false)
+public class PartIngestEvent extends Event {
+
+    @Label("Marketplace")
+    public String marketplace;
+
+    @Label("Rows")
+    @Description("Unique parts in the batch")
+    public int rows;
+
+    @Label("Inserted")
+    public int inserted;
+
+    @Label("Updated")
+    public int updated;
+
+    @Label("Unchanged")
+    public int unchanged;
+}
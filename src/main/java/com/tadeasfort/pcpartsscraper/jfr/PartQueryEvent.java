@@ -0,0 +1,36 @@
+package com.tadeasfort.pcpartsscraper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One filtered part search of the web UI, the page query and the count query
+ */
+@Name("pcpartsscraper.PartQuery")
+@Label("Part Query")
+@Category({ "PC Parts Scraper", "Persistence" })
+@Description("Filtered part search")
+@StackTrace(false)
+public class PartQueryEvent extends Event {
+
+    @Label("Category")
+    public String category;
+
+    @Label("Marketplace")
+    public String marketplace;
+
+    @Label("Search")
+    public String search;
+
+    @Label("Rows")
+    @Description("Parts on the returned page")
+    public int rows;
+
+    @Label("Total")
+    @Description("Parts matching the filters")
+    public long total;
+}
@@ -0,0 +1,52 @@
+package com.tadeasfort.pcpartsscraper.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * High-water mark of a category crawl: the newest listing seen by the last
+ * completed run. Marketplaces list newest first, so the next run can stop as
+ * soon as it reaches listings at or below this mark.
+ */
+@Entity
+@Table(name = "crawl_watermarks", uniqueConstraints = @UniqueConstraint(name = "uk_watermark_marketplace_category", columnNames = {
+        "marketplace", "category" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CrawlWatermark {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String marketplace;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private Part.PartType category;
+
+    // Highest numeric listing ID seen
+    @Column(nullable = false)
+    private Long newestListingId;
+
+    // Creation date of the newest listing, as shown on its page
+    @Column
+    private LocalDateTime newestListingDate;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,145 @@
+package com.tadeasfort.pcpartsscraper.model;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 128-bit identity of a stored listing: MurmurHash3 (x64, 128-bit) of the
+ * normalized marketplace, external ID, title and price. It replaces the hex
+ * SHA-256 unique hash - nothing here needs a cryptographic hash, and two
+ * {@code bigint} columns index in half the space of a 64 character string
+ * and compare faster.
+ *
+ * @param hi first 64 bits of the hash
+ * @param lo second 64 bits of the hash
+ */
+public record ListingIdentity(long hi, long lo) {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    /**
+     * Compute the identity from the listing's (stored, truncated) fields
+     */
+    public static ListingIdentity compute(Part part) {
+        return compute(part.getMarketplace(), part.getExternalId(), part.getTitle(), part.getPrice());
+    }
+
+    public static ListingIdentity compute(String marketplace, String externalId, String title, BigDecimal price) {
+        // 1500 and 1500.00 (the scale the column stores) are the same price, so re-scraped and
+        // backfilled rows get the same identity
+        String input = normalize(marketplace) + '|' + normalize(externalId) + '|' + normalize(title) + '|'
+                + (price != null ? price.stripTrailingZeros().toPlainString() : "null");
+        return murmur3(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Identity stored on the part, null if it hasn't been set
+     */
+    public static ListingIdentity of(Part part) {
+        if (part.getIdentityHi() == null || part.getIdentityLo() == null) {
+            return null;
+        }
+        return new ListingIdentity(part.getIdentityHi(), part.getIdentityLo());
+    }
+
+    public void applyTo(Part part) {
+        part.setIdentityHi(hi);
+        part.setIdentityLo(lo);
+    }
+
+    private static String normalize(String value) {
+        return value != null ? value.trim() : "";
+    }
+
+    static ListingIdentity murmur3(byte[] data) {
+        int length = data.length;
+        int blocks = length / 16;
+        long h1 = 0;
+        long h2 = 0;
+
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLongLittleEndian(data, i * 16);
+            long k2 = getLongLittleEndian(data, i * 16 + 8);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = blocks * 16;
+        long k1 = 0;
+        long k2 = 0;
+        switch (length & 15) {
+            case 15: k2 ^= (long) (data[tail + 14] & 0xff) << 48;
+            case 14: k2 ^= (long) (data[tail + 13] & 0xff) << 40;
+            case 13: k2 ^= (long) (data[tail + 12] & 0xff) << 32;
+            case 12: k2 ^= (long) (data[tail + 11] & 0xff) << 24;
+            case 11: k2 ^= (long) (data[tail + 10] & 0xff) << 16;
+            case 10: k2 ^= (long) (data[tail + 9] & 0xff) << 8;
+            case 9:
+                k2 ^= data[tail + 8] & 0xff;
+                h2 ^= mixK2(k2);
+            case 8: k1 ^= (long) (data[tail + 7] & 0xff) << 56;
+            case 7: k1 ^= (long) (data[tail + 6] & 0xff) << 48;
+            case 6: k1 ^= (long) (data[tail + 5] & 0xff) << 40;
+            case 5: k1 ^= (long) (data[tail + 4] & 0xff) << 32;
+            case 4: k1 ^= (long) (data[tail + 3] & 0xff) << 24;
+            case 3: k1 ^= (long) (data[tail + 2] & 0xff) << 16;
+            case 2: k1 ^= (long) (data[tail + 1] & 0xff) << 8;
+            case 1:
+                k1 ^= data[tail] & 0xff;
+                h1 ^= mixK1(k1);
+            default:
+                break;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        return new ListingIdentity(h1, h2);
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long getLongLittleEndian(byte[] data, int offset) {
+        return (data[offset] & 0xffL)
+                | (data[offset + 1] & 0xffL) << 8
+                | (data[offset + 2] & 0xffL) << 16
+                | (data[offset + 3] & 0xffL) << 24
+                | (data[offset + 4] & 0xffL) << 32
+                | (data[offset + 5] & 0xffL) << 40
+                | (data[offset + 6] & 0xffL) << 48
+                | (data[offset + 7] & 0xffL) << 56;
+    }
+}
@@ -5,13 +5,13 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
-import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 @Entity
 @Table(name = "parts", indexes = {
@@ -20,13 +20,12 @@ import java.time.LocalDateTime;
         @Index(name = "idx_price", columnList = "price"),
         @Index(name = "idx_scraped_at", columnList = "scrapedAt"),
         @Index(name = "idx_external_id", columnList = "externalId"),
-        @Index(name = "idx_unique_hash", columnList = "uniqueHash")
-})
+        @Index(name = "idx_marketplace_external_id", columnList = "marketplace, externalId")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_part_identity", columnNames = { "identityHi", "identityLo" }))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@EqualsAndHashCode(of = "uniqueHash")
 public class Part {
 
     @Id
@@ -103,9 +102,17 @@ public class Part {
     @Column
     private LocalDateTime updatedAt;
 
-    @NotBlank
-    @Column(nullable = false, unique = true, length = 64)
-    private String uniqueHash;
+    // ListingIdentity split into two columns. Nullable only so that ddl-auto can add the columns to an
+    // existing table - ListingIdentityBackfill fills them in for rows stored before they existed
+    @Column
+    private Long identityHi;
+
+    @Column
+    private Long identityLo;
+
+    // ListingFingerprint of the fields that change after posting, null for rows scraped before it existed
+    @Column
+    private Long contentFingerprint;
 
     @Builder.Default
     @Column(nullable = false)
@@ -122,6 +129,26 @@ public class Part {
         updatedAt = LocalDateTime.now();
     }
 
+    // Equal by listing identity; rows the identity backfill left without one are told apart by their id
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Part other)) {
+            return false;
+        }
+        if (identityHi != null && identityLo != null) {
+            return identityHi.equals(other.identityHi) && identityLo.equals(other.identityLo);
+        }
+        return other.identityHi == null && id != null && id.equals(other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return identityHi != null && identityLo != null ? Objects.hash(identityHi, identityLo) : Objects.hashCode(id);
+    }
+
     public enum PartType {
         CPU("Procesory"),
         GPU("Grafické karty"),
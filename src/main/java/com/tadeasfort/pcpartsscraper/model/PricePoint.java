@@ -0,0 +1,14 @@
+package com.tadeasfort.pcpartsscraper.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One observed price of a listing, stored in the partitioned
+ * part_price_history table
+ *
+ * @param price null when the listing's price is "v textu"
+ */
+public record PricePoint(String marketplace, String externalId, LocalDateTime observedAt, BigDecimal price,
+        String currency) {
+}
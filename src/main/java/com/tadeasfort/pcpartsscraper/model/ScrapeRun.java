@@ -0,0 +1,86 @@
+package com.tadeasfort.pcpartsscraper.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one category crawl: how long it took, how much it fetched and
+ * stored, and why it stopped. Kept to follow throughput over time.
+ */
+@Entity
+@Table(name = "scrape_runs", indexes = {
+        @Index(name = "idx_scrape_run_category_started", columnList = "marketplace, category, startedAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScrapeRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String marketplace;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private Part.PartType category;
+
+    // Node the run executed on
+    @Column(length = 200)
+    private String node;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime finishedAt;
+
+    @Column(nullable = false)
+    private Long durationMs;
+
+    // List pages walked
+    @Column(nullable = false)
+    private Integer pages;
+
+    // Listings downloaded, detail pages or search results
+    @Column(nullable = false)
+    private Integer listingsFetched;
+
+    // New listings handed to the crawl frontier, fetched later by its workers; null for runs before it was kept
+    @Column
+    private Integer listingsQueued;
+
+    @Column(nullable = false)
+    private Integer inserted;
+
+    @Column(nullable = false)
+    private Integer updated;
+
+    @Column(nullable = false)
+    private Integer duplicates;
+
+    // Listings that could not be fetched or parsed, plus failed list pages
+    @Column(nullable = false)
+    private Integer errors;
+
+    @Column(nullable = false)
+    private Long bytesDownloaded;
+
+    @Column(nullable = false, length = 30)
+    private String stopReason;
+
+    // Fetch latency percentiles over all requests of the run, null if nothing was fetched
+    @Column
+    private Double fetchLatencyP50Ms;
+
+    @Column
+    private Double fetchLatencyP95Ms;
+}
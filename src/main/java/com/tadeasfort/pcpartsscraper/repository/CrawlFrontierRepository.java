@@ -0,0 +1,180 @@
+package com.tadeasfort.pcpartsscraper.repository;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to crawl_frontier, the persistent queue of listing URLs waiting
+ * to be fetched.
+ * <p>
+ * List page discovery enqueues URLs; detail workers on any node claim batches
+ * with {@code SELECT ... FOR UPDATE SKIP LOCKED}, so concurrent workers never
+ * wait for or take each other's rows. A claim is a lease: rows are deleted once
+ * their listings are stored, and rows of a worker that died become claimable
+ * again when the lease runs out. Failed URLs are retried after
+ * {@code not_before}; rows that used up their attempts stay in the table for
+ * inspection and are never claimed again.
+ */
+@Repository
+@Slf4j
+public class CrawlFrontierRepository {
+
+    private static final String TABLE = "crawl_frontier";
+
+    private static final String INSERT = "INSERT INTO " + TABLE
+            + " (marketplace, part_type, url, priority, attempts, not_before, created_at)"
+            + " VALUES (?, ?, ?, ?, 0, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String SELECT_CLAIMABLE = "SELECT id, part_type, url, attempts FROM " + TABLE
+            + " WHERE marketplace = ? AND attempts < ? AND not_before <= ?"
+            + " AND (claimed_until IS NULL OR claimed_until < ?)"
+            + " ORDER BY priority DESC, id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String CLAIM = "UPDATE " + TABLE
+            + " SET claimed_by = ?, claimed_until = ?, attempts = attempts + 1 WHERE id = ?";
+
+    private static final String RETRY = "UPDATE " + TABLE
+            + " SET claimed_by = NULL, claimed_until = NULL, not_before = ?, last_error = ? WHERE id = ?";
+
+    private static final int BATCH_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public CrawlFrontierRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * A claimed URL
+     *
+     * @param attempts number of claims including this one
+     */
+    public record ClaimedUrl(long id, Part.PartType partType, String url, int attempts) {
+    }
+
+    @PostConstruct
+    public void createTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                + "id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "marketplace varchar(50) NOT NULL, part_type varchar(50) NOT NULL, url varchar(1000) NOT NULL, "
+                + "priority integer NOT NULL, attempts integer NOT NULL, not_before timestamp NOT NULL, "
+                + "claimed_by varchar(200), claimed_until timestamp, last_error varchar(500), "
+                + "created_at timestamp NOT NULL, "
+                + "CONSTRAINT uk_crawl_frontier_url UNIQUE (marketplace, url))");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_crawl_frontier_claim ON " + TABLE
+                + " (marketplace, priority DESC, id)");
+    }
+
+    /**
+     * Add URLs to the frontier. URLs already waiting in it are left as they are.
+     *
+     * @param priority higher is claimed first
+     * @return number of URLs added
+     */
+    public int enqueue(String marketplace, Part.PartType partType, List<String> urls, int priority) {
+        if (urls.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int added = 0;
+        for (int[] batch : jdbcTemplate.batchUpdate(INSERT, urls, BATCH_SIZE, (ps, url) -> {
+            ps.setString(1, marketplace);
+            ps.setString(2, partType.name());
+            ps.setString(3, url);
+            ps.setInt(4, priority);
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+        })) {
+            for (int count : batch) {
+                // Some drivers report SUCCESS_NO_INFO (-2) instead of the row count
+                added += count == 0 ? 0 : 1;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Claim up to {@code limit} ready URLs of a marketplace, highest priority first
+     *
+     * @param worker      identifies the claiming worker, for inspection
+     * @param lease       how long the URLs stay claimed without being completed or released
+     * @param maxAttempts URLs claimed this many times already are skipped
+     */
+    public List<ClaimedUrl> claim(String marketplace, String worker, int limit, Duration lease, int maxAttempts) {
+        return transactionTemplate.execute(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<ClaimedUrl> claimed = jdbcTemplate.query(SELECT_CLAIMABLE,
+                    (rs, rowNum) -> new ClaimedUrl(rs.getLong("id"), Part.PartType.valueOf(rs.getString("part_type")),
+                            rs.getString("url"), rs.getInt("attempts") + 1),
+                    marketplace, maxAttempts, now, now, limit);
+            if (claimed.isEmpty()) {
+                return claimed;
+            }
+
+            Timestamp claimedUntil = Timestamp.valueOf(LocalDateTime.now().plus(lease));
+            jdbcTemplate.batchUpdate(CLAIM, claimed, BATCH_SIZE, (ps, url) -> {
+                ps.setString(1, worker);
+                ps.setTimestamp(2, claimedUntil);
+                ps.setLong(3, url.id());
+            });
+            return claimed;
+        });
+    }
+
+    /**
+     * Remove URLs whose listings have been stored
+     */
+    public void complete(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM " + TABLE + " WHERE id = ?", new ArrayList<>(ids), BATCH_SIZE,
+                (ps, id) -> ps.setLong(1, id));
+    }
+
+    /**
+     * Release a claimed URL to be tried again once {@code notBefore} has passed
+     */
+    public void retry(long id, String error, LocalDateTime notBefore) {
+        String message = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+        jdbcTemplate.update(RETRY, Timestamp.valueOf(notBefore), message, id);
+    }
+
+    /**
+     * Get the number of waiting, claimed and given-up URLs per marketplace
+     */
+    public Map<String, Object> getStats(int maxAttempts) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<String, Object> stats = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT marketplace,"
+                + " SUM(CASE WHEN attempts < ? AND (claimed_until IS NULL OR claimed_until < ?) THEN 1 ELSE 0 END)"
+                + " AS waiting,"
+                + " SUM(CASE WHEN claimed_until >= ? THEN 1 ELSE 0 END) AS claimed,"
+                + " SUM(CASE WHEN attempts >= ? AND (claimed_until IS NULL OR claimed_until < ?) THEN 1 ELSE 0 END)"
+                + " AS failed"
+                + " FROM " + TABLE + " GROUP BY marketplace", rs -> {
+                    stats.put(rs.getString("marketplace"), Map.of(
+                            "waiting", rs.getLong("waiting"),
+                            "claimed", rs.getLong("claimed"),
+                            "failed", rs.getLong("failed")));
+                }, maxAttempts, now, now, maxAttempts, now);
+        return stats;
+    }
+}
@@ -0,0 +1,14 @@
+package com.tadeasfort.pcpartsscraper.repository;
+
+import com.tadeasfort.pcpartsscraper.model.CrawlWatermark;
+import com.tadeasfort.pcpartsscraper.model.Part;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CrawlWatermarkRepository extends JpaRepository<CrawlWatermark, Long> {
+
+    Optional<CrawlWatermark> findByMarketplaceAndCategory(String marketplace, Part.PartType category);
+}
@@ -0,0 +1,261 @@
+package com.tadeasfort.pcpartsscraper.repository;
+
+import com.tadeasfort.pcpartsscraper.model.ListingIdentity;
+import com.tadeasfort.pcpartsscraper.model.Part;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk insert of parts that skips listings which are already stored.
+ * <p>
+ * {@code Part} ids come from an identity column, which makes Hibernate give
+ * up on JDBC batching - {@code saveAll} sends one INSERT per row. On
+ * PostgreSQL this streams the batch into a temporary staging table with COPY
+ * and moves it over with one {@code INSERT ... SELECT ... ON CONFLICT DO
+ * NOTHING}, so a batch of any size takes a handful of round trips. Other
+ * databases (H2 in tests) get a JDBC batch of single-row inserts with the same
+ * conflict clause.
+ * <p>
+ * Small batches such as a crawled page use {@link #insertReturning}: a single
+ * multi-row {@code INSERT ... ON CONFLICT DO NOTHING RETURNING}, one round trip
+ * without the staging table.
+ */
+@Repository
+@Slf4j
+public class PartBulkInsertRepository {
+
+    // Every column except the generated id, in the order used by COPY, the staging table and the INSERT
+    private static final String COLUMNS = "title, description, part_type, price, currency, marketplace, source, "
+            + "external_id, url, image_url, location, condition, brand, model, seller_name, phone, view_count, "
+            + "is_promoted, scraped_at, updated_at, identity_hi, identity_lo, content_fingerprint, active";
+    private static final int COLUMN_COUNT = 24;
+
+    private static final String CREATE_STAGING = "CREATE TEMP TABLE parts_staging ON COMMIT DROP AS SELECT "
+            + COLUMNS + " FROM parts WITH NO DATA";
+    private static final String COPY_STAGING = "COPY parts_staging (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT_FROM_STAGING = "INSERT INTO parts (" + COLUMNS + ") SELECT " + COLUMNS
+            + " FROM parts_staging ON CONFLICT (identity_hi, identity_lo) DO NOTHING "
+            + "RETURNING id, identity_hi, identity_lo";
+    private static final String ROW_PLACEHOLDERS = "(" + "?, ".repeat(COLUMN_COUNT - 1) + "?)";
+    // PostgreSQL allows at most 65535 bind parameters per statement
+    private static final int MAX_ROWS_PER_INSERT = 65535 / COLUMN_COUNT;
+    private static final String INSERT_ROW = "INSERT INTO parts (" + COLUMNS + ") VALUES ("
+            + "?, ".repeat(COLUMN_COUNT - 1) + "?) ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final boolean postgres;
+
+    public PartBulkInsertRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.postgres = "PostgreSQL".equalsIgnoreCase(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+    }
+
+    /**
+     * Outcome of a bulk insert
+     *
+     * @param inserted   parts that were stored, with their generated id when the database returns it
+     * @param duplicates parts skipped because a part with the same identity already existed
+     */
+    public record BulkInsertResult(List<Part> inserted, int duplicates) {
+    }
+
+    /**
+     * Insert the parts in one transaction, skipping those whose listing
+     * identity is already stored (or repeated within the batch). Like Part's
+     * {@code @PrePersist}, which these inserts bypass, it sets both timestamps to now.
+     */
+    public BulkInsertResult insertIgnoringDuplicates(List<Part> parts) {
+        if (parts.isEmpty()) {
+            return new BulkInsertResult(List.of(), 0);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Part part : parts) {
+            part.setScrapedAt(now);
+            part.setUpdatedAt(now);
+        }
+
+        List<Part> inserted = transaction.execute(status -> postgres ? copyInsert(parts) : batchInsert(parts));
+        return new BulkInsertResult(inserted, parts.size() - inserted.size());
+    }
+
+    /**
+     * Insert the parts with one multi-row INSERT per up to 2730 parts, skipping
+     * those whose listing identity is already stored (or repeated within the
+     * batch). Joins the caller's transaction; timestamps must already be set.
+     *
+     * @return the inserted parts with their generated ids
+     */
+    public List<Part> insertReturning(List<Part> parts) {
+        if (parts.isEmpty()) {
+            return List.of();
+        }
+        if (!postgres) {
+            return batchInsert(parts);
+        }
+
+        List<Part> inserted = new ArrayList<>(parts.size());
+        for (int from = 0; from < parts.size(); from += MAX_ROWS_PER_INSERT) {
+            List<Part> chunk = parts.subList(from, Math.min(parts.size(), from + MAX_ROWS_PER_INSERT));
+            String sql = "INSERT INTO parts (" + COLUMNS + ") VALUES "
+                    + String.join(", ", Collections.nCopies(chunk.size(), ROW_PLACEHOLDERS))
+                    + " ON CONFLICT (identity_hi, identity_lo) DO NOTHING RETURNING id, identity_hi, identity_lo";
+
+            inserted.addAll(jdbcTemplate.execute((ConnectionCallback<List<Part>>) connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    int index = 1;
+                    for (Part part : chunk) {
+                        for (Object value : values(part)) {
+                            setValue(ps, index++, value);
+                        }
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return matchReturned(chunk, rs);
+                    }
+                }
+            }));
+        }
+        return inserted;
+    }
+
+    private List<Part> copyInsert(List<Part> parts) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Part>>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING);
+            }
+
+            try {
+                connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_STAGING, new StringReader(toCsv(parts)));
+            } catch (IOException e) {
+                throw new SQLException("COPY into parts_staging failed", e);
+            }
+
+            try (Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery(INSERT_FROM_STAGING)) {
+                return matchReturned(parts, rs);
+            }
+        });
+    }
+
+    // Maps the returned (id, identity_hi, identity_lo) rows back to the parts that were inserted
+    private static List<Part> matchReturned(List<Part> parts, ResultSet rs) throws SQLException {
+        Map<ListingIdentity, Part> byIdentity = new HashMap<>();
+        for (Part part : parts) {
+            byIdentity.putIfAbsent(ListingIdentity.of(part), part);
+        }
+
+        List<Part> inserted = new ArrayList<>();
+        while (rs.next()) {
+            Part part = byIdentity.get(new ListingIdentity(rs.getLong(2), rs.getLong(3)));
+            if (part != null) {
+                part.setId(rs.getLong(1));
+                inserted.add(part);
+            }
+        }
+        return inserted;
+    }
+
+    private List<Part> batchInsert(List<Part> parts) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_ROW, parts, 500, this::bind);
+
+        List<Part> inserted = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    inserted.add(parts.get(index));
+                }
+                index++;
+            }
+        }
+        return inserted;
+    }
+
+    private void bind(PreparedStatement ps, Part part) throws SQLException {
+        Object[] values = values(part);
+        for (int i = 0; i < values.length; i++) {
+            setValue(ps, i + 1, values[i]);
+        }
+    }
+
+    private static void setValue(PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.NULL);
+        } else {
+            ps.setObject(index, value);
+        }
+    }
+
+    private static Object[] values(Part part) {
+        return new Object[] {
+                part.getTitle(),
+                part.getDescription(),
+                part.getPartType() != null ? part.getPartType().name() : null,
+                part.getPrice(),
+                part.getCurrency(),
+                part.getMarketplace(),
+                part.getSource(),
+                part.getExternalId(),
+                part.getUrl(),
+                part.getImageUrl(),
+                part.getLocation(),
+                part.getCondition(),
+                part.getBrand(),
+                part.getModel(),
+                part.getSellerName(),
+                part.getPhone(),
+                part.getViewCount(),
+                part.getIsPromoted(),
+                part.getScrapedAt(),
+                part.getUpdatedAt(),
+                part.getIdentityHi(),
+                part.getIdentityLo(),
+                part.getContentFingerprint(),
+                part.getActive() != null ? part.getActive() : Boolean.TRUE
+        };
+    }
+
+    // CSV with every value quoted, so an unquoted empty field is unambiguously NULL
+    static String toCsv(List<Part> parts) {
+        StringBuilder csv = new StringBuilder(parts.size() * 512);
+        for (Part part : parts) {
+            Object[] values = values(part);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    csv.append(',');
+                }
+                if (values[i] != null) {
+                    String value = values[i] instanceof BigDecimal decimal ? decimal.toPlainString()
+                            : values[i].toString();
+                    csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+                }
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package com.tadeasfort.pcpartsscraper.repository;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Batched JDBC updates of the mutable listing fields. Going around JPA avoids
+ * loading the entities first - the caller has already decided from the content
+ * fingerprints which listings changed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PartContentUpdateRepository {
+
+    private static final String UPDATE_CONTENT = "UPDATE parts SET price = ?, description = ?, view_count = ?, "
+            + "is_promoted = ?, content_fingerprint = ?, updated_at = ? "
+            + "WHERE marketplace = ? AND external_id = ?";
+
+    private static final int BATCH_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Write the mutable fields of already stored listings, keyed on marketplace and external ID
+     *
+     * @return number of rows updated
+     */
+    public int updateContent(List<Part> parts) {
+        if (parts.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_CONTENT, parts, BATCH_SIZE, (ps, part) -> {
+            ps.setBigDecimal(1, part.getPrice());
+            ps.setString(2, part.getDescription());
+            if (part.getViewCount() != null) {
+                ps.setInt(3, part.getViewCount());
+            } else {
+                ps.setNull(3, Types.INTEGER);
+            }
+            if (part.getIsPromoted() != null) {
+                ps.setBoolean(4, part.getIsPromoted());
+            } else {
+                ps.setNull(4, Types.BOOLEAN);
+            }
+            ps.setLong(5, part.getContentFingerprint());
+            ps.setTimestamp(6, now);
+            ps.setString(7, part.getMarketplace());
+            ps.setString(8, part.getExternalId());
+        });
+
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched statements
+                updated += count > 0 ? count : count == Statement.SUCCESS_NO_INFO ? 1 : 0;
+            }
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,178 @@
+package com.tadeasfort.pcpartsscraper.repository;
+
+import com.tadeasfort.pcpartsscraper.model.PricePoint;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC access to part_price_history. The table isn't a JPA entity: on
+ * PostgreSQL it is range-partitioned by month of observed_at, which Hibernate
+ * can't create. Monthly partitions are created on demand before inserting, and
+ * retention drops whole partitions instead of deleting rows. On other databases
+ * (H2 in tests) it is a plain table.
+ * <p>
+ * The primary key (marketplace, external_id, observed_at) doubles as the index
+ * serving the history of one listing.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class PartPriceHistoryRepository {
+
+    private static final String TABLE = "part_price_history";
+    private static final Pattern PARTITION_NAME = Pattern.compile("^" + TABLE + "_y(\\d{4})m(\\d{2})$");
+
+    private static final String COLUMNS = "marketplace varchar(50) NOT NULL, external_id varchar(50) NOT NULL, "
+            + "observed_at timestamp NOT NULL, price numeric(10,2), currency varchar(3), "
+            + "PRIMARY KEY (marketplace, external_id, observed_at)";
+
+    private static final String INSERT = "INSERT INTO " + TABLE
+            + " (marketplace, external_id, observed_at, price, currency) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT DO NOTHING";
+
+    private static final String SELECT_HISTORY = "SELECT marketplace, external_id, observed_at, price, currency FROM "
+            + TABLE + " WHERE marketplace = ? AND external_id = ? ORDER BY observed_at";
+
+    private static final String SELECT_WITH_HISTORY = "SELECT DISTINCT external_id FROM " + TABLE
+            + " WHERE marketplace = ? AND external_id IN (%s)";
+
+    private static final int BATCH_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Set<YearMonth> existingPartitions = ConcurrentHashMap.newKeySet();
+    private boolean partitioned;
+
+    @PostConstruct
+    public void createTable() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData()
+                .getDatabaseProductName());
+        partitioned = "PostgreSQL".equalsIgnoreCase(database);
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" + COLUMNS + ")"
+                + (partitioned ? " PARTITION BY RANGE (observed_at)" : ""));
+        log.info("Price history table ready ({})", partitioned ? "partitioned by month" : "not partitioned");
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    /**
+     * Insert price points in JDBC batches. A point with the same listing and
+     * timestamp as a stored one is ignored.
+     */
+    public void insertAll(List<PricePoint> points) {
+        if (points.isEmpty()) {
+            return;
+        }
+
+        points.stream().map(point -> YearMonth.from(point.observedAt())).distinct().forEach(this::ensurePartition);
+
+        jdbcTemplate.batchUpdate(INSERT, points, BATCH_SIZE, (ps, point) -> {
+            ps.setString(1, point.marketplace());
+            ps.setString(2, point.externalId());
+            ps.setTimestamp(3, Timestamp.valueOf(point.observedAt()));
+            ps.setBigDecimal(4, point.price());
+            ps.setString(5, point.currency());
+        });
+    }
+
+    /**
+     * Price history of one listing, oldest first
+     */
+    public List<PricePoint> findHistory(String marketplace, String externalId) {
+        return jdbcTemplate.query(SELECT_HISTORY, (rs, rowNum) -> new PricePoint(
+                rs.getString("marketplace"),
+                rs.getString("external_id"),
+                rs.getTimestamp("observed_at").toLocalDateTime(),
+                rs.getBigDecimal("price"),
+                rs.getString("currency")), marketplace, externalId);
+    }
+
+    /**
+     * Which of the listings have at least one price point
+     */
+    public Set<String> findExternalIdsWithHistory(String marketplace, Collection<String> externalIds) {
+        Set<String> withHistory = new HashSet<>();
+        List<String> ids = List.copyOf(externalIds);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE));
+            Object[] args = new Object[chunk.size() + 1];
+            args[0] = marketplace;
+            for (int i = 0; i < chunk.size(); i++) {
+                args[i + 1] = chunk.get(i);
+            }
+            withHistory.addAll(jdbcTemplate.queryForList(
+                    String.format(SELECT_WITH_HISTORY, String.join(", ", Collections.nCopies(chunk.size(), "?"))),
+                    String.class, args));
+        }
+        return withHistory;
+    }
+
+    /**
+     * Create the partition holding the given month if it doesn't exist yet
+     */
+    public void ensurePartition(YearMonth month) {
+        if (!partitioned || existingPartitions.contains(month)) {
+            return;
+        }
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        existingPartitions.add(month);
+    }
+
+    /**
+     * Remove all history observed before the given month
+     *
+     * @return number of partitions dropped, or rows deleted when the table isn't partitioned
+     */
+    public int dropBefore(YearMonth month) {
+        if (!partitioned) {
+            return jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE observed_at < ?",
+                    Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+        }
+
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = ?", String.class, TABLE);
+
+        int dropped = 0;
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth partitionMonth = YearMonth.of(Integer.parseInt(matcher.group(1)),
+                    Integer.parseInt(matcher.group(2)));
+            if (partitionMonth.isBefore(month)) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                existingPartitions.remove(partitionMonth);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+}
@@ -1,31 +1,69 @@
 package com.tadeasfort.pcpartsscraper.repository;
 
+import com.tadeasfort.pcpartsscraper.model.ListingIdentity;
 import com.tadeasfort.pcpartsscraper.model.Part;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface PartRepository extends JpaRepository<Part, Long> {
 
-        Optional<Part> findByUniqueHash(String uniqueHash);
-
-        boolean existsByUniqueHash(String uniqueHash);
+        boolean existsByIdentityHiAndIdentityLo(Long identityHi, Long identityLo);
 
         List<Part> findByMarketplaceAndExternalId(String marketplace, String externalId);
 
-        // Batch methods for duplicate handling
-        @Query("SELECT p.uniqueHash FROM Part p WHERE p.uniqueHash IN :uniqueHashes")
-        Set<String> findExistingUniqueHashes(@Param("uniqueHashes") Set<String> uniqueHashes);
+        List<Part> findByMarketplaceAndExternalIdIn(String marketplace, Collection<String> externalIds);
+
+        // Batch methods for duplicate handling - uk_part_identity serves the lookup by the high half
+        @Query("SELECT p.identityHi, p.identityLo FROM Part p WHERE p.identityHi IN :identityHis")
+        List<Object[]> findIdentitiesByHighHalf(@Param("identityHis") Collection<Long> identityHis);
+
+        default Set<ListingIdentity> findExistingIdentities(Collection<ListingIdentity> identities) {
+                if (identities.isEmpty()) {
+                        return Set.of();
+                }
+                Set<ListingIdentity> existing = new HashSet<>();
+                for (Object[] row : findIdentitiesByHighHalf(identities.stream().map(ListingIdentity::hi).toList())) {
+                        existing.add(new ListingIdentity((Long) row[0], (Long) row[1]));
+                }
+                existing.retainAll(identities);
+                return existing;
+        }
+
+        // Pre-fetch check of listing IDs, served by idx_marketplace_external_id
+        @Query("SELECT p.externalId FROM Part p WHERE p.marketplace = :marketplace AND p.externalId IN :externalIds")
+        Set<String> findExistingExternalIds(@Param("marketplace") String marketplace,
+                        @Param("externalIds") Collection<String> externalIds);
+
+        // Stored content fingerprints, prices and last update times of listings, used to skip re-scraped
+        // listings that haven't changed and to tell price changes apart
+        @Query("SELECT p.externalId, p.contentFingerprint, p.price, p.updatedAt FROM Part p " +
+                        "WHERE p.marketplace = :marketplace AND p.externalId IN :externalIds")
+        List<Object[]> findContentFingerprints(@Param("marketplace") String marketplace,
+                        @Param("externalIds") Collection<String> externalIds);
+
+        // Streaming scan used to warm up the seen listing filter - must run inside a transaction
+        @Query("SELECT p.marketplace, p.externalId FROM Part p")
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+        Stream<Object[]> streamListingIds();
+
+        @Query("SELECT p.marketplace, COUNT(p) FROM Part p GROUP BY p.marketplace")
+        List<Object[]> getListingCountsByMarketplace();
 
         Page<Part> findByActiveTrue(Pageable pageable);
 
@@ -0,0 +1,30 @@
+package com.tadeasfort.pcpartsscraper.repository;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.model.ScrapeRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ScrapeRunRepository extends JpaRepository<ScrapeRun, Long> {
+
+    @Query("SELECT r FROM ScrapeRun r WHERE (:marketplace IS NULL OR r.marketplace = :marketplace) "
+            + "AND (:category IS NULL OR r.category = :category) ORDER BY r.startedAt DESC")
+    List<ScrapeRun> findRecent(@Param("marketplace") String marketplace, @Param("category") Part.PartType category,
+            Pageable pageable);
+
+    @Query("SELECT r FROM ScrapeRun r WHERE r.startedAt >= :since "
+            + "AND (:marketplace IS NULL OR r.marketplace = :marketplace) ORDER BY r.startedAt")
+    List<ScrapeRun> findStartedSince(@Param("since") LocalDateTime since, @Param("marketplace") String marketplace);
+
+    @Modifying
+    @Query("DELETE FROM ScrapeRun r WHERE r.startedAt < :cutoff")
+    int deleteStartedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,5 +1,6 @@
 package com.tadeasfort.pcpartsscraper.service;
 
+import com.tadeasfort.pcpartsscraper.jfr.PartQueryEvent;
 import com.tadeasfort.pcpartsscraper.model.Part;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
@@ -31,6 +32,9 @@ public class PartService {
             String search,
             Pageable pageable) {
 
+        PartQueryEvent event = new PartQueryEvent();
+        event.begin();
+
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Part> query = cb.createQuery(Part.class);
         Root<Part> root = query.from(Part.class);
@@ -158,6 +162,16 @@ public class PartService {
         countQuery.where(countPredicates.toArray(new Predicate[0]));
         Long total = entityManager.createQuery(countQuery).getSingleResult();
 
+        event.end();
+        if (event.shouldCommit()) {
+            event.category = partType != null ? partType.name() : null;
+            event.marketplace = marketplace;
+            event.search = search;
+            event.rows = results.size();
+            event.total = total;
+            event.commit();
+        }
+
         return new PageImpl<>(results, pageable, total);
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.tadeasfort.pcpartsscraper.service;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.model.PricePoint;
+import com.tadeasfort.pcpartsscraper.repository.PartPriceHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records listing prices over time. The ingest path reports a listing here
+ * when it is first stored and whenever its price differs from the stored one.
+ * A listing stored before the history was kept starts its history with the
+ * price it had before its first change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceHistoryService {
+
+    private final PartPriceHistoryRepository historyRepository;
+
+    @Value("${app.price-history.enabled:true}")
+    private boolean enabled;
+
+    // 0 keeps the history forever
+    @Value("${app.price-history.retention-months:24}")
+    private int retentionMonths;
+
+    @Value("${app.price-history.partitions-ahead:1}")
+    private int partitionsAhead;
+
+    /**
+     * A stored listing whose price changed
+     *
+     * @param part               listing with the new price
+     * @param previousPrice      stored price before the change
+     * @param previousObservedAt when the stored price was last written, null if unknown
+     */
+    public record PriceChange(Part part, BigDecimal previousPrice, LocalDateTime previousObservedAt) {
+    }
+
+    /**
+     * Append the current price of the given listings. Failures are logged and
+     * don't affect saving the listings themselves.
+     */
+    public void recordPrices(Collection<Part> parts) {
+        if (!enabled || parts.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        insert(parts.stream().map(part -> pricePoint(part, now, part.getPrice())).toList());
+    }
+
+    /**
+     * Append the new price of listings whose price changed. A listing without
+     * any history yet first gets its previous price, so that the change shows.
+     * Failures are logged like in {@link #recordPrices(Collection)}.
+     *
+     * @param marketplace marketplace all the listings belong to
+     */
+    public void recordPriceChanges(String marketplace, Collection<PriceChange> changes) {
+        if (!enabled || changes.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PricePoint> points = new ArrayList<>();
+        try {
+            Set<String> withHistory = historyRepository.findExternalIdsWithHistory(marketplace,
+                    changes.stream().map(change -> change.part().getExternalId()).toList());
+            for (PriceChange change : changes) {
+                if (!withHistory.contains(change.part().getExternalId())) {
+                    LocalDateTime observedAt = change.previousObservedAt() != null
+                            && change.previousObservedAt().isBefore(now)
+                                    ? change.previousObservedAt()
+                                    : now.minusSeconds(1);
+                    points.add(pricePoint(change.part(), observedAt, change.previousPrice()));
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not look up price history of {} listings: {}", changes.size(), e.getMessage());
+        }
+        changes.forEach(change -> points.add(pricePoint(change.part(), now, change.part().getPrice())));
+        insert(points);
+    }
+
+    private void insert(List<PricePoint> points) {
+        try {
+            historyRepository.insertAll(points);
+        } catch (DataAccessException e) {
+            log.warn("Could not record price history of {} listings: {}", points.size(), e.getMessage());
+        }
+    }
+
+    private static PricePoint pricePoint(Part part, LocalDateTime observedAt, BigDecimal price) {
+        return new PricePoint(part.getMarketplace(), part.getExternalId(), observedAt, price, part.getCurrency());
+    }
+
+    /**
+     * @return price history of the listing, oldest first
+     */
+    public List<PricePoint> getHistory(Part part) {
+        return historyRepository.findHistory(part.getMarketplace(), part.getExternalId());
+    }
+
+    /**
+     * Whether a newly observed price differs from the stored one, treating
+     * 1500 and 1500.00 as the same price
+     */
+    public static boolean priceChanged(BigDecimal stored, BigDecimal observed) {
+        if (stored == null || observed == null) {
+            return stored != observed;
+        }
+        return stored.compareTo(observed) != 0;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareOnStartup() {
+        maintainPartitions();
+    }
+
+    /**
+     * Create the partitions for the coming months and drop the ones past the
+     * retention period
+     */
+    @Scheduled(cron = "${app.price-history.maintenance-cron:0 30 3 * * *}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            YearMonth current = YearMonth.now();
+            for (int i = 0; i <= partitionsAhead; i++) {
+                historyRepository.ensurePartition(current.plusMonths(i));
+            }
+
+            if (retentionMonths > 0) {
+                int dropped = historyRepository.dropBefore(current.minusMonths(retentionMonths));
+                if (dropped > 0) {
+                    log.info("Price history retention removed {} {} older than {} months", dropped,
+                            historyRepository.isPartitioned() ? "partitions" : "rows", retentionMonths);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Price history maintenance failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scrape interval of a category derived from how fast new listings arrive in it.
+ * <p>
+ * After every run the number of new listings divided by the time since the
+ * previous run is folded into an exponentially weighted arrival rate. The next
+ * run is due once about {@code target-new-listings} new listings are expected,
+ * bounded by the min and max interval - busy categories such as GPUs are
+ * crawled often, quiet ones such as scanners rarely, for about the same number
+ * of requests per run.
+ */
+@Component
+public class AdaptiveScrapeInterval {
+
+    /** Job data key of the smoothed arrival rate in new listings per hour */
+    public static final String ARRIVAL_RATE_KEY = "arrivalRatePerHour";
+
+    /** Job data key of the current interval in minutes */
+    public static final String INTERVAL_KEY = "intervalMinutes";
+
+    @Value("${app.scraping.adaptive-interval.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.scraping.adaptive-interval.smoothing:0.3}")
+    private double smoothing;
+
+    @Value("${app.scraping.adaptive-interval.target-new-listings:40}")
+    private int targetNewListings;
+
+    @Value("${app.scraping.adaptive-interval.min-minutes:30}")
+    private long minMinutes;
+
+    @Value("${app.scraping.adaptive-interval.max-minutes:1440}")
+    private long maxMinutes;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Fold one run into the smoothed arrival rate
+     *
+     * @param previousRate smoothed rate before this run, null for the first run
+     * @param newListings  new listings stored by this run
+     * @param elapsedHours hours since the previous run started
+     * @return new smoothed rate in listings per hour
+     */
+    public double updateRate(Double previousRate, int newListings, double elapsedHours) {
+        return ewma(previousRate, newListings / Math.max(elapsedHours, 1.0 / 60), smoothing);
+    }
+
+    /**
+     * Interval after which the target number of new listings is expected
+     *
+     * @param ratePerHour smoothed arrival rate
+     * @return interval in minutes, within the configured bounds
+     */
+    public long intervalMinutes(double ratePerHour) {
+        return intervalMinutes(ratePerHour, targetNewListings, minMinutes, maxMinutes);
+    }
+
+    static double ewma(Double previous, double observed, double smoothing) {
+        return previous == null ? observed : smoothing * observed + (1 - smoothing) * previous;
+    }
+
+    static long intervalMinutes(double ratePerHour, int targetNewListings, long minMinutes, long maxMinutes) {
+        if (ratePerHour <= 0) {
+            return maxMinutes;
+        }
+        long minutes = Math.round(targetNewListings / ratePerHour * 60);
+        return Math.max(minMinutes, Math.min(maxMinutes, minutes));
+    }
+}
@@ -0,0 +1,101 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+/**
+ * Additive-increase / multiplicative-decrease request rate for one host and
+ * route.
+ * <p>
+ * Every fast, successful response nudges the rate up so that it grows by about
+ * {@code additiveIncrease} requests per second each second. Throttling
+ * (429/503), connection failures and responses slower than the latency
+ * threshold cut it by {@code decreaseFactor}. Cuts are at most one per cooldown,
+ * so a burst of errors from requests that were already in flight counts as a
+ * single congestion signal.
+ */
+final class AimdRateController {
+
+    /**
+     * How a request ended, as far as the rate is concerned
+     */
+    enum Signal {
+        /** Fast successful response - probe for more */
+        OK,
+        /** Successful but slower than the latency threshold */
+        SLOW,
+        /** 429, 503, reset connection or timeout */
+        THROTTLED,
+        /** Any other error - says nothing about load */
+        NEUTRAL
+    }
+
+    private static final long DECREASE_COOLDOWN_NANOS = 1_000_000_000L;
+
+    private final double minRate;
+    private final double maxRate;
+    private final double additiveIncrease;
+    private final double decreaseFactor;
+    private final long latencyThresholdNanos;
+
+    private double rate;
+    private long lastDecreaseNanos;
+    private long decreases;
+
+    AimdRateController(double initialRate, double minRate, double maxRate, double additiveIncrease,
+            double decreaseFactor, long latencyThresholdNanos) {
+        this.minRate = minRate;
+        this.maxRate = Math.max(minRate, maxRate);
+        this.additiveIncrease = additiveIncrease;
+        this.decreaseFactor = decreaseFactor;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.rate = clamp(initialRate);
+        this.lastDecreaseNanos = System.nanoTime() - DECREASE_COOLDOWN_NANOS;
+    }
+
+    /**
+     * Classify a response by its status and latency
+     */
+    Signal classify(int status, long latencyNanos) {
+        if (status == 429 || status == 503) {
+            return Signal.THROTTLED;
+        }
+        if (status >= 400) {
+            return Signal.NEUTRAL;
+        }
+        return latencyNanos > latencyThresholdNanos ? Signal.SLOW : Signal.OK;
+    }
+
+    /**
+     * Feed one request outcome into the controller
+     *
+     * @return the rate after the update, in requests per second
+     */
+    synchronized double update(Signal signal) {
+        switch (signal) {
+            // A response arrives about every 1/rate seconds, so +increase/rate per response is +increase per second
+            case OK -> rate = clamp(rate + additiveIncrease / rate);
+            case SLOW, THROTTLED -> {
+                long now = System.nanoTime();
+                if (now - lastDecreaseNanos >= DECREASE_COOLDOWN_NANOS) {
+                    rate = clamp(rate * decreaseFactor);
+                    lastDecreaseNanos = now;
+                    decreases++;
+                }
+            }
+            case NEUTRAL -> {
+                // Leave the rate alone
+            }
+        }
+        return rate;
+    }
+
+    synchronized double rate() {
+        return rate;
+    }
+
+    synchronized long decreases() {
+        return decreases;
+    }
+
+    private double clamp(double value) {
+        return Math.max(minRate, Math.min(maxRate, value));
+    }
+}
@@ -1,5 +1,6 @@
 package com.tadeasfort.pcpartsscraper.service.scraping;
 
+import com.tadeasfort.pcpartsscraper.model.ListingIdentity;
 import com.tadeasfort.pcpartsscraper.model.Part;
 import com.tadeasfort.pcpartsscraper.repository.PartRepository;
 import lombok.RequiredArgsConstructor;
@@ -13,9 +14,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -145,8 +143,9 @@ public class Bazos {
                             : 0.0;
 
                     if (databaseDuplicateRatio >= duplicateStopThreshold) {
-                        log.info("Stopping scraping for {} - database duplicate ratio {:.1%} exceeds threshold {:.1%}",
-                                partType, databaseDuplicateRatio, duplicateStopThreshold);
+                        log.info("Stopping scraping for {} - database duplicate ratio {} exceeds threshold {}",
+                                partType, String.format("%.1f%%", databaseDuplicateRatio * 100),
+                                String.format("%.1f%%", duplicateStopThreshold * 100));
                         shouldStopEarly = true;
                     }
                 }
@@ -190,9 +189,9 @@ public class Bazos {
             }
 
             // Step 1: Remove duplicates within the current batch (same page)
-            Map<String, Part> uniqueParts = new LinkedHashMap<>();
+            Map<ListingIdentity, Part> uniqueParts = new LinkedHashMap<>();
             for (Part part : parts) {
-                uniqueParts.put(part.getUniqueHash(), part);
+                uniqueParts.put(ListingIdentity.of(part), part);
             }
             List<Part> dedupedParts = new ArrayList<>(uniqueParts.values());
             int intraBatchDuplicates = parts.size() - dedupedParts.size();
@@ -203,15 +202,11 @@ public class Bazos {
 
             // Step 2: Check against database for existing parts in batches for better
             // performance
-            Set<String> uniqueHashes = dedupedParts.stream()
-                    .map(Part::getUniqueHash)
-                    .collect(java.util.stream.Collectors.toSet());
-
-            Set<String> existingHashes = partRepository.findExistingUniqueHashes(uniqueHashes);
+            Set<ListingIdentity> existingIdentities = partRepository.findExistingIdentities(uniqueParts.keySet());
 
             // Step 3: Filter out parts that already exist in database
             List<Part> newParts = dedupedParts.stream()
-                    .filter(part -> !existingHashes.contains(part.getUniqueHash()))
+                    .filter(part -> !existingIdentities.contains(ListingIdentity.of(part)))
                     .collect(java.util.stream.Collectors.toList());
 
             int databaseDuplicates = dedupedParts.size() - newParts.size();
@@ -239,12 +234,13 @@ public class Bazos {
                     // Fallback to individual inserts if batch fails
                     for (Part part : newParts) {
                         try {
-                            if (!partRepository.existsByUniqueHash(part.getUniqueHash())) {
+                            if (!partRepository.existsByIdentityHiAndIdentityLo(part.getIdentityHi(),
+                                    part.getIdentityLo())) {
                                 partRepository.save(part);
                                 actuallyInserted++;
                             }
                         } catch (Exception ex) {
-                            log.debug("Failed to insert part (likely duplicate): {} - {}", part.getUniqueHash(),
+                            log.debug("Failed to insert part (likely duplicate): {} - {}", ListingIdentity.of(part),
                                     ex.getMessage());
                         }
                     }
@@ -372,11 +368,8 @@ public class Bazos {
             // Check if promoted
             Boolean isPromoted = pageText.contains("TOP");
 
-            String uniqueHash = generateUniqueHash("bazos", externalId, title,
-                    price != null ? price.toString() : "null");
-
             LocalDateTime now = LocalDateTime.now();
-            return Part.builder()
+            Part part = Part.builder()
                     .title(truncateString(title.trim(), 500))
                     .description(truncateString(description, 2000)) // Add truncation for description
                     .partType(partType)
@@ -390,11 +383,12 @@ public class Bazos {
                     .phone(truncateString(phone, 100))
                     .viewCount(viewCount)
                     .isPromoted(isPromoted)
-                    .uniqueHash(uniqueHash)
                     .scrapedAt(dateCreated != null ? dateCreated : now)
                     .updatedAt(now) // Explicitly set updatedAt
                     .active(true)
                     .build();
+            ListingIdentity.compute(part).applyTo(part);
+            return part;
 
         } catch (Exception e) {
             log.warn("Error scraping individual listing {}: {}", url, e.getMessage());
@@ -564,27 +558,6 @@ public class Bazos {
         return null;
     }
 
-    private String generateUniqueHash(String marketplace, String externalId, String title, String price) {
-        try {
-            String input = marketplace + "|" + externalId + "|" + title + "|" + price;
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(input.getBytes(StandardCharsets.UTF_8));
-
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            log.error("Error generating hash", e);
-            return marketplace + "_" + externalId + "_" + System.currentTimeMillis();
-        }
-    }
-
     private String truncateString(String str, int maxLength) {
         if (str == null) {
             return null;
@@ -0,0 +1,279 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.jfr.ListingParseEvent;
+import com.tadeasfort.pcpartsscraper.model.ListingIdentity;
+import com.tadeasfort.pcpartsscraper.model.Part;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a Bazos detail page into a {@link Part}.
+ * <p>
+ * The default path streams the page through jsoup's {@link StreamParser} and
+ * keeps only the elements that carry listing fields (heading, date, description
+ * and the seller table), then stops reading. {@link ListingFieldExtractor} then
+ * reads all fields from that short text in one pass. Pages the streaming path
+ * can't make sense of fall back to a full DOM parse, which collects the same
+ * elements, or reads the whole body text when the page has no listing heading.
+ */
+@Component
+@Slf4j
+public class BazosListingParser {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("/inzerat/(\\d+)/");
+
+    // Elements of a detail page that hold listing fields
+    private static final String FIELD_ELEMENTS = "h1.nadpisdetail, span.velikost10, div.popisdetail, tr";
+    private static final String[] FIELD_ROW_LABELS = { "Jméno:", "Telefon:", "Lokalita:", "Vidělo:", "Cena:" };
+
+    private final boolean streamingParser;
+
+    public BazosListingParser(@Value("${app.scraping.bazos.streaming-parser:true}") boolean streamingParser) {
+        this.streamingParser = streamingParser;
+    }
+
+    /**
+     * Listing fields pulled from a page: the heading plus the text to run the
+     * field extractors over
+     */
+    record PageContent(String heading, String text) {
+    }
+
+    /**
+     * Parse a downloaded detail page into a part
+     *
+     * @return part or null if the page isn't a usable listing
+     */
+    public Part parse(String url, PageFetcher.FetchResult page, Part.PartType partType) {
+        ListingParseEvent event = new ListingParseEvent();
+        event.begin();
+        Part part = parseListing(url, page, partType);
+        event.end();
+        if (event.shouldCommit()) {
+            event.url = url;
+            event.category = partType != null ? partType.name() : null;
+            event.bytes = page.body().length;
+            event.parsed = part != null;
+            event.commit();
+        }
+        return part;
+    }
+
+    private Part parseListing(String url, PageFetcher.FetchResult page, Part.PartType partType) {
+        try {
+            String externalId = extractExternalId(url);
+
+            if (externalId == null) {
+                return null;
+            }
+
+            PageContent content = streamingParser ? streamContent(page) : null;
+            if (content == null) {
+                content = domContent(page);
+            }
+            String pageText = content.text();
+
+            // Extract title from the page heading or page text
+            String title = extractTitle(pageText, content.heading());
+            if (title == null || title.trim().isEmpty()) {
+                return null;
+            }
+
+            ListingFieldExtractor.ListingFields fields = ListingFieldExtractor.extract(pageText,
+                    new ListingFieldExtractor.ListingFields());
+
+            // Price is null for "v textu" cases
+            BigDecimal price = fields.getPrice();
+            if (price != null && price.compareTo(BigDecimal.ZERO) <= 0) {
+                return null; // Reject only negative prices, allow null and positive prices
+            }
+
+            String location = fields.getLocation();
+            String description = fields.getDescription();
+            LocalDateTime dateCreated = fields.getDateCreated();
+            String sellerName = fields.getSellerName();
+            String phone = fields.getPhone();
+            Integer viewCount = fields.getViewCount();
+            Boolean isPromoted = fields.isPromoted();
+
+            LocalDateTime now = LocalDateTime.now();
+            Part part = Part.builder()
+                    .title(truncateString(title.trim(), 500))
+                    .description(truncateString(description, 2000)) // Add truncation for description
+                    .partType(partType)
+                    .price(price)
+                    .currency("CZK")
+                    .marketplace("bazos")
+                    .source("bazos") // Set source for marketplace distinction
+                    .externalId(truncateString(externalId, 50))
+                    .url(truncateString(url, 1000))
+                    .location(truncateString(location, 200))
+                    .sellerName(truncateString(sellerName, 200))
+                    .phone(truncateString(phone, 100))
+                    .viewCount(viewCount)
+                    .isPromoted(isPromoted)
+                    .scrapedAt(dateCreated != null ? dateCreated : now)
+                    .updatedAt(now) // Explicitly set updatedAt
+                    .active(true)
+                    .build();
+            // Identity and fingerprint of the stored (truncated) values
+            ListingIdentity.compute(part).applyTo(part);
+            part.setContentFingerprint(ListingFingerprint.of(part));
+            return part;
+
+        } catch (Exception e) {
+            log.warn("Error parsing individual listing {}: {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    private String extractTitle(String pageText, String heading) {
+        // Try to find title in various places
+        if (heading != null && !heading.trim().isEmpty()) {
+            return heading.trim();
+        }
+
+        // Look for the title pattern in the page text
+        String[] lines = pageText.split("\\n");
+        for (String line : lines) {
+            line = line.trim();
+            if (line.contains("GeForce") || line.contains("Radeon") || line.contains("RTX") ||
+                    line.contains("GTX") || line.contains("RX") || line.contains("Intel") ||
+                    line.contains("AMD") || line.contains("NVIDIA")) {
+                // Check if this looks like a product title
+                if (line.length() > 10 && line.length() < 200 &&
+                        !line.contains("Cena:") && !line.contains("Lokalita:")) {
+                    return line;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Stream the page and collect only the listing field elements.
+     * Reading stops once the seller table's view count and price rows are in.
+     *
+     * @return page content or null if the page doesn't look like a detail page
+     */
+    PageContent streamContent(PageFetcher.FetchResult page) throws IOException {
+        Charset charset = page.charset() != null ? page.charset() : StandardCharsets.UTF_8;
+        FieldCollector collector = new FieldCollector();
+
+        try (StreamParser streamer = new StreamParser(Parser.htmlParser())) {
+            streamer.parse(new InputStreamReader(new ByteArrayInputStream(page.body()), charset), page.url());
+
+            Element element;
+            while (!collector.isComplete() && (element = streamer.selectNext(FIELD_ELEMENTS)) != null) {
+                collector.add(element);
+            }
+            streamer.stop();
+        }
+        return collector.content();
+    }
+
+    /**
+     * Parse the whole page and collect the same elements as the streaming path,
+     * so both give the same listing. A page without a listing heading is read
+     * from its whole body text.
+     */
+    PageContent domContent(PageFetcher.FetchResult page) throws IOException {
+        Document doc = page.parse();
+        FieldCollector collector = new FieldCollector();
+        for (Element element : doc.select(FIELD_ELEMENTS)) {
+            if (collector.isComplete()) {
+                break;
+            }
+            collector.add(element);
+        }
+
+        PageContent content = collector.content();
+        if (content != null) {
+            return content;
+        }
+        Element titleElement = doc.selectFirst("h1");
+        return new PageContent(titleElement != null ? titleElement.text() : null, doc.body().text());
+    }
+
+    /**
+     * Text of the listing field elements in page order, complete once the
+     * seller table's view count and price rows are in
+     */
+    private static final class FieldCollector {
+        private String heading;
+        private final StringBuilder text = new StringBuilder(1024);
+        private boolean hasViewCount;
+        private boolean hasPrice;
+
+        void add(Element element) {
+            if (element.normalName().equals("tr")) {
+                String label = fieldRowLabel(element);
+                if (label == null) {
+                    return;
+                }
+                hasViewCount |= label.equals("Vidělo:");
+                hasPrice |= label.equals("Cena:");
+            } else if (element.normalName().equals("h1")) {
+                heading = element.text();
+            }
+            text.append(element.text()).append(' ');
+        }
+
+        boolean isComplete() {
+            return hasViewCount && hasPrice;
+        }
+
+        // Null if the page has no listing heading
+        PageContent content() {
+            if (heading == null || heading.isBlank()) {
+                return null;
+            }
+            return new PageContent(heading, text.toString());
+        }
+    }
+
+    // Label of a seller table row, or null for any other table row
+    private static String fieldRowLabel(Element row) {
+        if (row.childrenSize() < 2 || row.getElementsByTag("tr").size() > 1) {
+            return null;
+        }
+        String firstCell = row.child(0).text().trim();
+        for (String label : FIELD_ROW_LABELS) {
+            if (firstCell.startsWith(label)) {
+                return label;
+            }
+        }
+        return null;
+    }
+
+    static String extractExternalId(String url) {
+        Matcher matcher = ID_PATTERN.matcher(url);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private String truncateString(String str, int maxLength) {
+        if (str == null) {
+            return null;
+        }
+        if (str.length() <= maxLength) {
+            return str;
+        }
+        return str.substring(0, maxLength);
+    }
+}
@@ -1,53 +1,69 @@
 package com.tadeasfort.pcpartsscraper.service.scraping;
 
 import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.repository.CrawlFrontierRepository;
 import com.tadeasfort.pcpartsscraper.repository.PartRepository;
-import com.tadeasfort.pcpartsscraper.service.TorProxyService;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
 public class BazosScrapingService implements MarketplaceService {
 
     private final PartRepository partRepository;
-    private final TorProxyService torProxyService;
-
-    public BazosScrapingService(PartRepository partRepository, TorProxyService torProxyService) {
+    private final PartWriteBehindQueue writeQueue;
+    private final PageFetcher pageFetcher;
+    private final BazosListingParser listingParser;
+    private final SeenListingFilter seenListingFilter;
+    private final CrawlWatermarkService watermarkService;
+    private final CrawlFrontierRepository frontierRepository;
+    private final ScrapeRunService scrapeRunService;
+
+    public BazosScrapingService(PartRepository partRepository, PartWriteBehindQueue writeQueue,
+            PageFetcher pageFetcher, BazosListingParser listingParser, SeenListingFilter seenListingFilter,
+            CrawlWatermarkService watermarkService, CrawlFrontierRepository frontierRepository,
+            ScrapeRunService scrapeRunService) {
         this.partRepository = partRepository;
-        this.torProxyService = torProxyService;
+        this.writeQueue = writeQueue;
+        this.pageFetcher = pageFetcher;
+        this.listingParser = listingParser;
+        this.seenListingFilter = seenListingFilter;
+        this.watermarkService = watermarkService;
+        this.frontierRepository = frontierRepository;
+        this.scrapeRunService = scrapeRunService;
     }
 
-    private static final String BASE_URL = "https://pc.bazos.cz";
-    private static final Pattern PRICE_PATTERN = Pattern.compile("(\\d+(?:\\s*\\d*)*)\\s*Kč");
-    private static final Pattern PRICE_IN_TEXT_PATTERN = Pattern
-            .compile("(?i)cena\\s*[:\\-]?\\s*(\\d+(?:\\s*\\d*)*)\\s*(?:kč|czk|,-)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern ID_PATTERN = Pattern.compile("/inzerat/(\\d+)/");
-    private static final Pattern LOCATION_PATTERN = Pattern.compile("([A-Za-z\\s]+)(\\d{3}\\s*\\d{2})");
-    private static final Pattern DATE_PATTERN = Pattern.compile("\\[(\\d+\\.\\d+\\.\\s*\\d+)\\]");
+    private static final int MAX_PAGES = 500;
+
+    // Overridden by the replay profile to crawl the local stub marketplace
+    @Value("${app.scraping.bazos.base-url:https://pc.bazos.cz}")
+    private String baseUrl;
 
     @Value("${app.scraping.enabled:true}")
     private boolean scrapingEnabled;
@@ -55,16 +71,46 @@ public class BazosScrapingService implements MarketplaceService {
     @Value("${app.scraping.bazos.duplicate-stop-threshold:0.8}")
     private double duplicateStopThreshold;
 
+    @Value("${app.scraping.bazos.concurrent-fetch:true}")
+    private boolean concurrentFetch;
+
+    @Value("${app.scraping.bazos.pipeline.enabled:false}")
+    private boolean pipelineEnabled;
+
+    @Value("${app.scraping.bazos.pipeline.queue-capacity:2}")
+    private int pipelineQueueCapacity;
+
+    @Value("${app.scraping.bazos.refresh-known:false}")
+    private boolean refreshKnown;
+
+    @Value("${app.scraping.bazos.watermark.enabled:true}")
+    private boolean watermarkEnabled;
+
+    @Value("${app.scraping.bazos.watermark.overlap:3}")
+    private int watermarkOverlap;
+
+    @Value("${app.scraping.frontier.enabled:false}")
+    private boolean frontierEnabled;
+
     @Override
     public String getMarketplaceName() {
         return "bazos";
     }
 
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
     @Override
     public boolean isScrapingEnabled() {
         return scrapingEnabled;
     }
 
+    @Override
+    public Map<Part.PartType, String> getCategories() {
+        return Collections.unmodifiableMap(CATEGORY_MAPPINGS);
+    }
+
     // Updated category mappings based on actual Bazos.cz URLs
     private static final Map<Part.PartType, String> CATEGORY_MAPPINGS = new HashMap<>();
     static {
@@ -88,209 +134,361 @@ public class BazosScrapingService implements MarketplaceService {
         CATEGORY_MAPPINGS.put(Part.PartType.AUDIO_CARD, "sound"); // audio cards
     }
 
-    // Reuse connection for better performance
-    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
-    private static final int CONNECT_TIMEOUT = 10000; // Reduced from 15000 - this applies to both connect and read
-                                                      // timeouts
-
-    public void scrapeCategory(Part.PartType partType, String categoryPath) {
+    public int scrapeCategory(Part.PartType partType, String categoryPath) {
         if (!scrapingEnabled) {
             log.info("Scraping is disabled, skipping {}", partType);
-            return;
+            return -1;
         }
 
         log.info("Starting scraping for category: {} at path: {}", partType, categoryPath);
 
+        ScrapeRunTracker tracker = scrapeRunService.start(getMarketplaceName(), partType);
+        CrawlRun run = null;
         try {
-            int page = 1;
-            boolean hasMorePages = true;
-            int totalScraped = 0;
-
-            while (hasMorePages && page <= 500) { // Safety limit to prevent infinite loops
-                String url = buildUrl(categoryPath, page);
-                log.debug("Scraping page {} for {}: {}", page, partType, url);
+            long watermark = watermarkEnabled
+                    ? watermarkService.findNewestListingId(getMarketplaceName(), partType).orElse(-1L)
+                    : -1L;
+            run = new CrawlRun(tracker, watermark);
+
+            if (frontierEnabled) {
+                enqueueCategory(partType, categoryPath, run);
+                log.info("Queued {} new listings of {} for the frontier workers", run.totalScraped.get(), partType);
+            } else {
+                if (pipelineEnabled) {
+                    scrapeCategoryPipelined(partType, categoryPath, run);
+                } else {
+                    scrapeCategoryPageByPage(partType, categoryPath, run);
+                }
 
-                Document doc = createJsoupConnection(url).get();
+                // Pages are written behind the crawl - wait for them before counting and moving the watermark
+                run.awaitWrites();
 
-                doc.body().text();
-                List<String> listingUrls = extractListingUrls(doc);
+                log.info("Scraped and saved {} new parts for {}, updated {} changed listings",
+                        run.totalScraped.get(), partType, run.totalUpdated.get());
+            }
 
-                if (listingUrls.isEmpty()) {
-                    log.info("No more listings found on page {}, stopping", page);
-                    hasMorePages = false;
-                    break;
-                }
+            long newestStored = run.newestStoredListingId();
+            if (watermarkEnabled && newestStored > watermark) {
+                // The date belongs to the newest listing seen, which a failed listing may have held back
+                watermarkService.advance(getMarketplaceName(), partType, newestStored,
+                        newestStored == run.newestListingId.get() ? run.newestListingDate.get() : null);
+            }
 
-                // Process each listing URL to get detailed data
-                List<Part> pageScrapedParts = new ArrayList<>();
-                for (String listingUrl : listingUrls) {
-                    try {
-                        Part part = scrapeIndividualListing(listingUrl, partType);
-                        if (part != null) {
-                            pageScrapedParts.add(part);
-                        }
-                        Thread.sleep(200); // Reduced from 500ms to 200ms for better performance
-                    } catch (Exception e) {
-                        log.warn("Error scraping individual listing {}: {}", listingUrl, e.getMessage());
-                    }
-                }
+            scrapeRunService.finish(tracker, run.pages.get(), run.stopReason());
+            return run.totalScraped.get();
+        } catch (Exception e) {
+            log.error("Error scraping category {}: {}", partType, e.getMessage(), e);
+            if (run != null) {
+                // Pages of the failed run may not be stored - fetch them in full next time
+                run.fetchedUrls.forEach(pageFetcher::invalidate);
+            }
+            scrapeRunService.finish(tracker, run != null ? run.pages.get() : 0, ScrapeMetrics.StopReason.ERROR);
+            return -1;
+        }
+    }
 
-                // Save parts for this page in a separate transaction
-                SaveResult result = new SaveResult(0, 0, 0);
-                if (!pageScrapedParts.isEmpty()) {
-                    result = savePartsInTransaction(pageScrapedParts);
-                    totalScraped += result.saved;
-                    log.debug("Page {}: Saved {} parts, skipped {} duplicates", page, result.saved,
-                            result.getTotalDuplicates());
-                }
+    private void scrapeCategoryPageByPage(Part.PartType partType, String categoryPath, CrawlRun run)
+            throws IOException, InterruptedException {
+        for (int page = 1; page <= MAX_PAGES; page++) { // Safety limit to prevent infinite loops
+            CrawlPipeline.ListPage listPage = discoverPage(partType, categoryPath, page, run);
 
-                // Check for early termination conditions
-                // Only consider database duplicates for termination, not intra-batch duplicates
-                boolean shouldStopEarly = false;
-                if (!pageScrapedParts.isEmpty()) {
-                    // Calculate database duplicate ratio (parts already in DB vs unique parts from
-                    // page)
-                    int uniquePartsFromPage = pageScrapedParts.size() - result.intraBatchDuplicates;
-                    double databaseDuplicateRatio = uniquePartsFromPage > 0
-                            ? (double) result.databaseDuplicates / uniquePartsFromPage
-                            : 0.0;
-
-                    if (databaseDuplicateRatio >= duplicateStopThreshold) {
-                        log.info("Stopping scraping for {} - database duplicate ratio {:.1%} exceeds threshold {:.1%}",
-                                partType, databaseDuplicateRatio, duplicateStopThreshold);
-                        shouldStopEarly = true;
-                    }
-                }
+            if (listPage.isEmpty()) {
+                log.info("No more listings found on page {}, stopping", page);
+                break;
+            }
 
-                // Check if there's a next page by looking for "Další" link in DOM structure
-                // First check for specific next page URL pattern, then check link text
-                boolean hasNextPageLink = doc.select("a[href*='" + categoryPath + "/" + ((page + 1) * 20) + "']")
-                        .size() > 0;
-
-                if (!hasNextPageLink) {
-                    // Check for "Další" text in links as fallback
-                    hasNextPageLink = doc.select("a").stream()
-                            .anyMatch(link -> {
-                                String linkText = link.text().toLowerCase();
-                                return linkText.contains("další") || linkText.contains("next");
-                            });
-                }
+            // Process each new listing URL to get detailed data
+            List<Part> pageScrapedParts = parseListings(fetchListings(urlsToFetch(listPage), run), run);
+            persistPage(page, pageScrapedParts, run);
 
-                hasMorePages = hasNextPageLink && !listingUrls.isEmpty() && !shouldStopEarly;
+            if (listPage.stopAfterPage()) {
+                break;
+            }
 
-                if (!hasMorePages && !shouldStopEarly) {
-                    log.info("No next page found for {} on page {} - stopping pagination", partType, page);
-                }
+            if (!listPage.hasNextPage()) {
+                log.info("No next page found for {} on page {} - stopping pagination", partType, page);
+                break;
+            }
+        }
+    }
 
-                page++;
-                Thread.sleep(1500); // Reduced from 2000ms to 1500ms for better performance
+    /**
+     * Discover the category's list pages and leave the detail pages to the
+     * {@link CrawlFrontierWorker}s. The watermark can move as soon as the URLs
+     * are in the frontier, since they survive a crash there.
+     */
+    private void enqueueCategory(Part.PartType partType, String categoryPath, CrawlRun run)
+            throws IOException, InterruptedException {
+        for (int page = 1; page <= MAX_PAGES; page++) {
+            CrawlPipeline.ListPage listPage = discoverPage(partType, categoryPath, page, run);
+
+            if (listPage.isEmpty()) {
+                log.info("No more listings found on page {}, stopping", page);
+                break;
             }
 
-            log.info("Scraped and saved {} new parts for {}", totalScraped, partType);
+            // Earlier pages hold newer listings - fetch those first; refreshes of known listings come last
+            int queued = frontierRepository.enqueue(getMarketplaceName(), partType, listPage.listingUrls(),
+                    MAX_PAGES - page);
+            run.totalScraped.addAndGet(queued);
+            run.tracker.countQueued(queued);
+            if (refreshKnown) {
+                frontierRepository.enqueue(getMarketplaceName(), partType, listPage.knownListingUrls(), 0);
+            }
+            listPage.listingUrls().forEach(url -> run.observe(extractExternalId(url)));
 
-        } catch (Exception e) {
-            log.error("Error scraping category {}: {}", partType, e.getMessage(), e);
+            if (listPage.stopAfterPage() || !listPage.hasNextPage()) {
+                break;
+            }
         }
     }
 
-    @Transactional
-    private SaveResult savePartsInTransaction(List<Part> parts) {
-        try {
-            if (parts.isEmpty()) {
-                return new SaveResult(0, 0, 0);
+    private void scrapeCategoryPipelined(Part.PartType partType, String categoryPath, CrawlRun run)
+            throws InterruptedException {
+        CrawlPipeline pipeline = new CrawlPipeline(partType.name(), new CrawlPipeline.Stages() {
+            @Override
+            public CrawlPipeline.ListPage discover(int page) throws Exception {
+                return discoverPage(partType, categoryPath, page, run);
             }
 
-            // Step 1: Remove duplicates within the current batch (same page)
-            Map<String, Part> uniqueParts = new LinkedHashMap<>();
-            for (Part part : parts) {
-                uniqueParts.put(part.getUniqueHash(), part);
+            @Override
+            public List<CrawlPipeline.FetchedListing> fetch(CrawlPipeline.ListPage listPage) throws Exception {
+                return fetchListings(urlsToFetch(listPage), run);
             }
-            List<Part> dedupedParts = new ArrayList<>(uniqueParts.values());
-            int intraBatchDuplicates = parts.size() - dedupedParts.size();
 
-            if (intraBatchDuplicates > 0) {
-                log.debug("Found {} duplicate parts within the same page", intraBatchDuplicates);
+            @Override
+            public List<Part> parse(List<CrawlPipeline.FetchedListing> fetched) {
+                return parseListings(fetched, run);
             }
 
-            // Step 2: Check against database for existing parts in batches for better
-            // performance
-            Set<String> uniqueHashes = dedupedParts.stream()
-                    .map(Part::getUniqueHash)
-                    .collect(java.util.stream.Collectors.toSet());
-
-            Set<String> existingHashes = partRepository.findExistingUniqueHashes(uniqueHashes);
-
-            // Step 3: Filter out parts that already exist in database
-            List<Part> newParts = dedupedParts.stream()
-                    .filter(part -> !existingHashes.contains(part.getUniqueHash()))
-                    .collect(java.util.stream.Collectors.toList());
-
-            int databaseDuplicates = dedupedParts.size() - newParts.size();
-            int actuallyInserted = 0;
-
-            // Step 4: Insert new parts using batch processing for better performance
-            if (!newParts.isEmpty()) {
-                // Set timestamps for all parts before batch insert
-                LocalDateTime now = LocalDateTime.now();
-                for (Part part : newParts) {
-                    if (part.getScrapedAt() == null) {
-                        part.setScrapedAt(now);
-                    }
-                    if (part.getUpdatedAt() == null) {
-                        part.setUpdatedAt(now);
-                    }
-                }
+            @Override
+            public void persist(int page, List<Part> parts) {
+                persistPage(page, parts, run);
+            }
+        }, pipelineQueueCapacity, MAX_PAGES);
 
-                try {
-                    // Use saveAll for batch processing
-                    List<Part> savedParts = partRepository.saveAll(newParts);
-                    actuallyInserted = savedParts.size();
-                } catch (Exception e) {
-                    log.warn("Batch insert failed, falling back to individual inserts: {}", e.getMessage());
-                    // Fallback to individual inserts if batch fails
-                    for (Part part : newParts) {
-                        try {
-                            if (!partRepository.existsByUniqueHash(part.getUniqueHash())) {
-                                partRepository.save(part);
-                                actuallyInserted++;
-                            }
-                        } catch (Exception ex) {
-                            log.debug("Failed to insert part (likely duplicate): {} - {}", part.getUniqueHash(),
-                                    ex.getMessage());
-                        }
-                    }
+        pipeline.run();
+    }
+
+    /**
+     * Fetch a list page and collect its listing URLs.
+     * Listings that are already stored are filtered out by the seen listing
+     * filter (or one batched query) before any detail page is requested, and the share of known listings
+     * decides whether the crawl should stop after this page.
+     * Once the page reaches the category's watermark, the listings after it are
+     * dropped and the crawl stops after this page.
+     */
+    private CrawlPipeline.ListPage discoverPage(Part.PartType partType, String categoryPath, int page,
+            CrawlRun run) throws IOException, InterruptedException {
+        String url = buildUrl(categoryPath, page);
+        log.debug("Scraping page {} for {}: {}", page, partType, url);
+
+        run.pages.incrementAndGet();
+        PageFetcher.FetchResult listPage = fetchPage(url, run, ScrapeMetrics.PageKind.LIST);
+        if (listPage.notModified()) {
+            log.info("Page {} for {} has not changed since the last crawl, stopping", page, partType);
+            run.stop(ScrapeMetrics.StopReason.NOT_MODIFIED);
+            return new CrawlPipeline.ListPage(page, List.of(), List.of(), false, true);
+        }
+        Document doc = listPage.parse();
+        List<String> listingUrls = extractListingUrls(doc, baseUrl);
+
+        if (listingUrls.isEmpty()) {
+            run.stop(ScrapeMetrics.StopReason.NO_LISTINGS);
+            return new CrawlPipeline.ListPage(page, List.of(), List.of(), false, true);
+        }
+
+        int watermarkCutoff = watermarkCutoff(listingUrls, run.previousNewestListingId, watermarkOverlap);
+        if (watermarkCutoff >= 0) {
+            run.stop(ScrapeMetrics.StopReason.WATERMARK);
+            log.info("Reached watermark (listing {}) for {} on page {} - stopping after {} of {} listings",
+                    run.previousNewestListingId, partType, page, watermarkCutoff, listingUrls.size());
+            listingUrls = listingUrls.subList(0, watermarkCutoff);
+        }
+
+        Map<String, String> urlsById = new LinkedHashMap<>();
+        for (String listingUrl : listingUrls) {
+            urlsById.put(extractExternalId(listingUrl), listingUrl);
+        }
+        Set<String> knownIds = seenListingFilter.findKnown(getMarketplaceName(), urlsById.keySet(),
+                ids -> partRepository.findExistingExternalIds(getMarketplaceName(), ids));
+
+        List<String> newUrls = new ArrayList<>();
+        List<String> knownUrls = new ArrayList<>();
+        urlsById.forEach((id, listingUrl) -> (knownIds.contains(id) ? knownUrls : newUrls).add(listingUrl));
+        knownIds.forEach(run::observe);
+
+        // Check for early termination conditions
+        double knownRatio = (double) knownUrls.size() / listingUrls.size();
+        boolean stopAfterPage = knownRatio >= duplicateStopThreshold || watermarkCutoff >= 0;
+
+        log.debug("Page {}: {} new listings, skipping {} already stored", page, newUrls.size(), knownUrls.size());
+        if (knownRatio >= duplicateStopThreshold) {
+            run.stop(ScrapeMetrics.StopReason.KNOWN_RATIO);
+            log.info("Stopping scraping for {} after page {} - known listing ratio {} reached threshold {}",
+                    partType, page, formatRatio(knownRatio), formatRatio(duplicateStopThreshold));
+        }
+
+        // Check if there's a next page by looking for "Další" link in DOM structure
+        // First check for specific next page URL pattern, then check link text
+        boolean hasNextPageLink = doc.select("a[href*='" + categoryPath + "/" + ((page + 1) * 20) + "']")
+                .size() > 0;
+
+        if (!hasNextPageLink) {
+            // Check for "Další" text in links as fallback
+            hasNextPageLink = doc.select("a").stream()
+                    .anyMatch(link -> {
+                        String linkText = link.text().toLowerCase();
+                        return linkText.contains("další") || linkText.contains("next");
+                    });
+        }
+
+        return new CrawlPipeline.ListPage(page, newUrls, knownUrls, hasNextPageLink, stopAfterPage);
+    }
+
+    /**
+     * New listings, plus the already stored ones in refresh mode so that their
+     * price, description and other mutable fields are brought up to date
+     */
+    private List<String> urlsToFetch(CrawlPipeline.ListPage listPage) {
+        if (!refreshKnown || listPage.knownListingUrls().isEmpty()) {
+            return listPage.listingUrls();
+        }
+        List<String> urls = new ArrayList<>(listPage.listingUrls());
+        urls.addAll(listPage.knownListingUrls());
+        return urls;
+    }
+
+    /**
+     * Hand one page of parts to the write-behind queue
+     */
+    private void persistPage(int page, List<Part> pageScrapedParts, CrawlRun run) {
+        if (pageScrapedParts.isEmpty()) {
+            return;
+        }
+
+        // Before saving - scrapedAt still holds the listing's creation date here
+        pageScrapedParts.forEach(run::observe);
+
+        try {
+            run.pendingWrites.add(writeQueue.submit(getMarketplaceName(), pageScrapedParts).thenAccept(result -> {
+                run.tracker.countListings(result);
+                run.totalScraped.addAndGet(result.inserted());
+                run.totalUpdated.addAndGet(result.updated());
+                log.debug("Page {}: Saved {} parts, updated {}, skipped {} duplicates", page, result.inserted(),
+                        result.updated(), result.getTotalDuplicates());
+            }));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing page " + page + " for writing", e);
+        }
+    }
+
+    /**
+     * Position on a newest-first list page where the crawl catches up with the
+     * watermark: just after {@code overlap} consecutive listings at or below it.
+     * Requiring a run of old listings keeps promoted (TOP) and bumped listings,
+     * which show up above newer ones, from ending the crawl too early.
+     *
+     * @return number of listings to keep, or -1 if the watermark isn't reached on this page
+     */
+    static int watermarkCutoff(List<String> listingUrls, long watermark, int overlap) {
+        if (watermark < 0) {
+            return -1;
+        }
+
+        int consecutiveOld = 0;
+        for (int i = 0; i < listingUrls.size(); i++) {
+            String externalId = extractExternalId(listingUrls.get(i));
+            if (externalId != null && Long.parseLong(externalId) <= watermark) {
+                if (++consecutiveOld >= Math.max(1, overlap)) {
+                    return i + 1;
                 }
+            } else {
+                consecutiveOld = 0;
             }
+        }
+        return -1;
+    }
 
-            int totalDuplicates = intraBatchDuplicates + databaseDuplicates + (newParts.size() - actuallyInserted);
+    private static String formatRatio(double ratio) {
+        return String.format("%.1f%%", ratio * 100);
+    }
 
-            if (actuallyInserted > 0 || totalDuplicates > 0) {
-                log.debug("Saved {} new parts, skipped {} duplicates (intra-batch: {}, database: {}, failed: {})",
-                        actuallyInserted, totalDuplicates, intraBatchDuplicates, databaseDuplicates,
-                        (newParts.size() - actuallyInserted));
+    /**
+     * State of one category crawl: save and update counts and the newest listing seen,
+     * which becomes the next watermark unless a newer listing failed
+     */
+    private static final class CrawlRun {
+        final ScrapeRunTracker tracker;
+        final AtomicInteger pages = new AtomicInteger();
+        final AtomicReference<ScrapeMetrics.StopReason> stopReason = new AtomicReference<>();
+        final AtomicInteger totalScraped = new AtomicInteger();
+        final AtomicInteger totalUpdated = new AtomicInteger();
+        final long previousNewestListingId;
+        final AtomicLong newestListingId = new AtomicLong(-1);
+        final AtomicReference<LocalDateTime> newestListingDate = new AtomicReference<>();
+        // Lowest listing that failed to be fetched or parsed - the watermark stays below it
+        final AtomicLong lowestFailedListingId = new AtomicLong(Long.MAX_VALUE);
+        final Queue<CompletableFuture<Void>> pendingWrites = new ConcurrentLinkedQueue<>();
+        // Pages fetched with a body, whose validators are dropped if the run fails
+        final Queue<String> fetchedUrls = new ConcurrentLinkedQueue<>();
+
+        CrawlRun(ScrapeRunTracker tracker, long previousNewestListingId) {
+            this.tracker = tracker;
+            this.previousNewestListingId = previousNewestListingId;
+        }
+
+        /**
+         * Record why the crawl stops - the first reason given wins
+         */
+        void stop(ScrapeMetrics.StopReason reason) {
+            stopReason.compareAndSet(null, reason);
+        }
+
+        ScrapeMetrics.StopReason stopReason() {
+            ScrapeMetrics.StopReason reason = stopReason.get();
+            if (reason != null) {
+                return reason;
             }
+            return pages.get() >= MAX_PAGES ? ScrapeMetrics.StopReason.MAX_PAGES : ScrapeMetrics.StopReason.LAST_PAGE;
+        }
 
-            return new SaveResult(actuallyInserted, databaseDuplicates, intraBatchDuplicates);
-        } catch (Exception e) {
-            log.error("Error saving parts: {}", e.getMessage(), e);
-            return new SaveResult(0, parts.size(), 0);
+        /**
+         * Wait until every queued page is written
+         *
+         * @throws CompletionException if a page failed to be written
+         */
+        void awaitWrites() {
+            CompletableFuture.allOf(pendingWrites.toArray(CompletableFuture[]::new)).join();
         }
-    }
 
-    // Helper class to track save results
-    private static class SaveResult {
-        final int saved;
-        final int databaseDuplicates; // Parts that already existed in database
-        final int intraBatchDuplicates; // Duplicates within the same page batch
+        void fail(String externalId) {
+            if (externalId != null) {
+                lowestFailedListingId.accumulateAndGet(Long.parseLong(externalId), Math::min);
+            }
+        }
+
+        /**
+         * Newest listing the next crawl may stop at: the newest one seen, capped
+         * just below the lowest listing that failed so that the next crawl reaches it again
+         */
+        long newestStoredListingId() {
+            long lowestFailed = lowestFailedListingId.get();
+            return lowestFailed == Long.MAX_VALUE ? newestListingId.get()
+                    : Math.min(newestListingId.get(), lowestFailed - 1);
+        }
 
-        SaveResult(int saved, int databaseDuplicates, int intraBatchDuplicates) {
-            this.saved = saved;
-            this.databaseDuplicates = databaseDuplicates;
-            this.intraBatchDuplicates = intraBatchDuplicates;
+        void observe(String externalId) {
+            newestListingId.accumulateAndGet(Long.parseLong(externalId), Math::max);
         }
 
-        int getTotalDuplicates() {
-            return databaseDuplicates + intraBatchDuplicates;
+        void observe(Part part) {
+            observe(part.getExternalId());
+            if (part.getScrapedAt() != null) {
+                newestListingDate.accumulateAndGet(part.getScrapedAt(),
+                        (current, date) -> current == null || date.isAfter(current) ? date : current);
+            }
         }
     }
 
@@ -300,8 +498,8 @@ public class BazosScrapingService implements MarketplaceService {
         // Use the correct category mappings
         for (Map.Entry<Part.PartType, String> entry : CATEGORY_MAPPINGS.entrySet()) {
             try {
+                // No pause between categories - the shared rate limiter paces requests to the host
                 scrapeCategory(entry.getKey(), entry.getValue());
-                Thread.sleep(3000); // Wait between categories
             } catch (Exception e) {
                 log.error("Error scraping category {}: {}", entry.getKey(), e.getMessage());
             }
@@ -310,7 +508,7 @@ public class BazosScrapingService implements MarketplaceService {
         log.info("Completed full scraping of all categories");
     }
 
-    private List<String> extractListingUrls(Document doc) {
+    static List<String> extractListingUrls(Document doc, String baseUrl) {
         List<String> urls = new ArrayList<>();
         Set<String> uniqueIds = new HashSet<>(); // Track unique listing IDs
         Elements links = doc.select("a[href*=/inzerat/]");
@@ -321,11 +519,11 @@ public class BazosScrapingService implements MarketplaceService {
             String href = link.attr("href");
             if (href.contains("/inzerat/") && href.contains(".php")) {
                 if (!href.startsWith("http")) {
-                    href = BASE_URL + href;
+                    href = baseUrl + href;
                 }
 
                 // Extract the listing ID to avoid duplicates
-                String listingId = extractExternalId(href);
+                String listingId = BazosListingParser.extractExternalId(href);
                 if (listingId != null && !uniqueIds.contains(listingId)) {
                     uniqueIds.add(listingId);
                     urls.add(href);
@@ -337,288 +535,134 @@ public class BazosScrapingService implements MarketplaceService {
         return urls;
     }
 
-    private Part scrapeIndividualListing(String url, Part.PartType partType) {
-        try {
-            Document doc = createJsoupConnection(url).get();
-
-            String pageText = doc.body().text();
-            String externalId = extractExternalId(url);
-
-            if (externalId == null) {
-                return null;
+    /**
+     * Fetch the detail pages of one list page.
+     * In concurrent mode each listing gets its own virtual thread; the number of
+     * requests actually in flight is bounded by the per-host rate limiter.
+     */
+    private List<CrawlPipeline.FetchedListing> fetchListings(List<String> listingUrls, CrawlRun run)
+            throws InterruptedException {
+        List<CrawlPipeline.FetchedListing> fetched = new ArrayList<>();
+
+        if (!concurrentFetch) {
+            for (String listingUrl : listingUrls) {
+                CrawlPipeline.FetchedListing listing = fetchListing(listingUrl, run);
+                if (listing != null) {
+                    fetched.add(listing);
+                }
             }
+            return fetched;
+        }
 
-            // Extract title from the page heading or meta
-            String title = extractTitle(pageText, doc);
-            if (title == null || title.trim().isEmpty()) {
-                return null;
+        List<Future<CrawlPipeline.FetchedListing>> futures = new ArrayList<>(listingUrls.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String listingUrl : listingUrls) {
+                futures.add(executor.submit(() -> fetchListing(listingUrl, run)));
             }
 
-            // Extract price (null is allowed for "v textu" cases)
-            BigDecimal price = extractPrice(pageText);
-            if (price != null && price.compareTo(BigDecimal.ZERO) <= 0) {
-                return null; // Reject only negative prices, allow null and positive prices
+            // Keep the page order so the saved batch looks the same as in serial mode
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    CrawlPipeline.FetchedListing listing = futures.get(i).get();
+                    if (listing != null) {
+                        fetched.add(listing);
+                    }
+                } catch (ExecutionException e) {
+                    log.warn("Error scraping individual listing {}: {}", listingUrls.get(i),
+                            e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                    run.fail(extractExternalId(listingUrls.get(i)));
+                }
             }
+        }
+        return fetched;
+    }
 
-            // Extract location
-            String location = extractLocation(pageText);
-
-            // Extract description
-            String description = extractDescription(pageText);
-
-            // Extract date created
-            LocalDateTime dateCreated = extractDateCreated(pageText);
-
-            // Extract seller information
-            String sellerName = extractSellerName(pageText);
-            String phone = extractPhone(pageText);
-
-            // Extract view count
-            Integer viewCount = extractViewCount(pageText);
-
-            // Check if promoted
-            Boolean isPromoted = pageText.contains("TOP");
-
-            String uniqueHash = generateUniqueHash("bazos", externalId, title,
-                    price != null ? price.toString() : "null");
-
-            LocalDateTime now = LocalDateTime.now();
-            return Part.builder()
-                    .title(truncateString(title.trim(), 500))
-                    .description(truncateString(description, 2000)) // Add truncation for description
-                    .partType(partType)
-                    .price(price)
-                    .currency("CZK")
-                    .marketplace("bazos")
-                    .source("bazos") // Set source for marketplace distinction
-                    .externalId(truncateString(externalId, 50))
-                    .url(truncateString(url, 1000))
-                    .location(truncateString(location, 200))
-                    .sellerName(truncateString(sellerName, 200))
-                    .phone(truncateString(phone, 100))
-                    .viewCount(viewCount)
-                    .isPromoted(isPromoted)
-                    .uniqueHash(uniqueHash)
-                    .scrapedAt(dateCreated != null ? dateCreated : now)
-                    .updatedAt(now) // Explicitly set updatedAt
-                    .active(true)
-                    .build();
-
+    private CrawlPipeline.FetchedListing fetchListing(String url, CrawlRun run) {
+        try {
+            PageFetcher.FetchResult page = fetchPage(url, run, ScrapeMetrics.PageKind.DETAIL);
+            // 304 - the listing hasn't changed since we last parsed it
+            return page.notModified() ? null : new CrawlPipeline.FetchedListing(url, page);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.fail(extractExternalId(url));
+            return null;
         } catch (Exception e) {
             log.warn("Error scraping individual listing {}: {}", url, e.getMessage());
+            run.tracker.countFailed(1);
+            run.fail(extractExternalId(url));
             return null;
         }
     }
 
-    private String extractTitle(String pageText, Document doc) {
-        // Try to find title in various places
-        Element titleElement = doc.selectFirst("h1");
-        if (titleElement != null && !titleElement.text().trim().isEmpty()) {
-            return titleElement.text().trim();
-        }
-
-        // Look for the title pattern in the page text
-        String[] lines = pageText.split("\\n");
-        for (String line : lines) {
-            line = line.trim();
-            if (line.contains("GeForce") || line.contains("Radeon") || line.contains("RTX") ||
-                    line.contains("GTX") || line.contains("RX") || line.contains("Intel") ||
-                    line.contains("AMD") || line.contains("NVIDIA")) {
-                // Check if this looks like a product title
-                if (line.length() > 10 && line.length() < 200 &&
-                        !line.contains("Cena:") && !line.contains("Lokalita:")) {
-                    return line;
-                }
+    /**
+     * Fetch a page and record its latency and size
+     */
+    private PageFetcher.FetchResult fetchPage(String url, CrawlRun run, ScrapeMetrics.PageKind kind)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try {
+            PageFetcher.FetchResult result = pageFetcher.fetch(url);
+            run.tracker.recordFetch(kind, result.notModified() ? "not_modified" : "ok", result.latencyNanos(),
+                    result.body().length);
+            if (!result.notModified()) {
+                run.fetchedUrls.add(url);
             }
+            return result;
+        } catch (IOException e) {
+            run.tracker.recordFetch(kind, "error", System.nanoTime() - start, 0);
+            throw e;
         }
-
-        return null;
     }
 
-    private String extractDescription(String pageText) {
-        // Look for description patterns
-        int descStart = -1;
-        int descEnd = -1;
-
-        // Common description start patterns
-        String[] startPatterns = { "výkonnější než", "Záruka", "Preferuji", "Prodám", "Nabízím" };
-        for (String pattern : startPatterns) {
-            int index = pageText.indexOf(pattern);
-            if (index != -1 && (descStart == -1 || index < descStart)) {
-                descStart = index;
-            }
-        }
-
-        // Common description end patterns
-        String[] endPatterns = { "Cena pevná", "Jméno:", "Telefon:", "Lokalita:", "©2025" };
-        for (String pattern : endPatterns) {
-            int index = pageText.indexOf(pattern);
-            if (index != -1 && descStart != -1 && index > descStart) {
-                if (descEnd == -1 || index < descEnd) {
-                    descEnd = index;
-                }
+    private List<Part> parseListings(List<CrawlPipeline.FetchedListing> fetched, CrawlRun run) {
+        List<Part> parts = new ArrayList<>(fetched.size());
+        int failed = 0;
+        for (CrawlPipeline.FetchedListing listing : fetched) {
+            long start = System.nanoTime();
+            Part part = listingParser.parse(listing.url(), listing.page(), run.tracker.getCategory());
+            run.tracker.recordParse(System.nanoTime() - start, part != null);
+            if (part != null) {
+                parts.add(part);
+            } else {
+                // Not stored - don't let a 304 skip it on the next crawl
+                pageFetcher.invalidate(listing.url());
+                run.fail(extractExternalId(listing.url()));
+                failed++;
             }
         }
-
-        if (descStart != -1 && descEnd != -1 && descEnd > descStart) {
-            String description = pageText.substring(descStart, descEnd).trim();
-            if (description.length() > 10 && description.length() < 2000) {
-                return description;
-            }
-        }
-
-        return null;
+        run.tracker.countFailed(failed);
+        return parts;
     }
 
     private String buildUrl(String categoryPath, int page) {
         if (page == 1) {
-            return BASE_URL + "/" + categoryPath + "/";
+            return baseUrl + "/" + categoryPath + "/";
         }
-        return BASE_URL + "/" + categoryPath + "/" + (page * 20) + "/"; // Bazos uses 20-item increments
+        return baseUrl + "/" + categoryPath + "/" + (page * 20) + "/"; // Bazos uses 20-item increments
     }
 
     private String extractExternalId(String url) {
-        Matcher matcher = ID_PATTERN.matcher(url);
-        return matcher.find() ? matcher.group(1) : null;
+        return BazosListingParser.extractExternalId(url);
     }
 
-    private BigDecimal extractPrice(String text) {
-        // First try the standard price pattern
-        Matcher matcher = PRICE_PATTERN.matcher(text);
-        if (matcher.find()) {
-            try {
-                String priceStr = matcher.group(1).replaceAll("\\s+", "");
-                return new BigDecimal(priceStr);
-            } catch (NumberFormatException e) {
-                // Continue to try other patterns
-            }
-        }
-
-        // Try to find price in text format (e.g., "cena: 5000 Kč", "cena v textu")
-        Matcher textMatcher = PRICE_IN_TEXT_PATTERN.matcher(text);
-        if (textMatcher.find()) {
-            try {
-                String priceStr = textMatcher.group(1).replaceAll("\\s+", "");
-                return new BigDecimal(priceStr);
-            } catch (NumberFormatException e) {
-                // Continue to other patterns
-            }
-        }
-
-        // If we find "v textu" but no price, return null to indicate undefined price
-        // This allows items with negotiable/text-based pricing to be included with null
-        // price
-        if (text.toLowerCase().contains("v textu") || text.toLowerCase().contains("dohodou") ||
-                text.toLowerCase().contains("na dotaz")) {
-            log.debug("Found text-based pricing, price will be stored as null");
-            return null; // Null value to indicate "price in text" - price undefined
-        }
-
-        return null;
-    }
-
-    private String extractLocation(String text) {
-        Matcher matcher = LOCATION_PATTERN.matcher(text);
-        if (matcher.find()) {
-            return (matcher.group(1) + matcher.group(2)).trim();
-        }
-        return null;
-    }
-
-    private LocalDateTime extractDateCreated(String text) {
-        Matcher matcher = DATE_PATTERN.matcher(text);
-        if (matcher.find()) {
-            try {
-                String dateStr = matcher.group(1).trim();
-                // Parse date in format "4.7. 2025"
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d.M. yyyy");
-                LocalDate localDate = LocalDate.parse(dateStr, formatter);
-                return localDate.atStartOfDay(); // Convert to LocalDateTime
-            } catch (Exception e) {
-                log.debug("Could not parse date: {}", matcher.group(1));
-            }
-        }
-        return LocalDateTime.now();
-    }
-
-    private String extractSellerName(String pageText) {
-        Pattern sellerPattern = Pattern.compile("Jméno:([^\\n]+)");
-        Matcher matcher = sellerPattern.matcher(pageText);
-        if (matcher.find()) {
-            return matcher.group(1).trim();
-        }
-        return null;
-    }
-
-    private String extractPhone(String pageText) {
-        Pattern phonePattern = Pattern.compile("Telefon:([^\\n]+)");
-        Matcher matcher = phonePattern.matcher(pageText);
-        if (matcher.find()) {
-            return matcher.group(1).trim();
+    /**
+     * Part type of a category list page URL
+     *
+     * @return part type or null if the URL isn't a list page of a known category
+     */
+    Part.PartType categoryOf(String url) {
+        if (!url.startsWith(baseUrl + "/") || url.contains("/inzerat/")) {
+            return null;
         }
-        return null;
-    }
+        String path = url.substring(baseUrl.length() + 1);
+        int slash = path.indexOf('/');
+        String categoryPath = slash >= 0 ? path.substring(0, slash) : path;
 
-    private Integer extractViewCount(String pageText) {
-        Pattern viewPattern = Pattern.compile("Vidělo:(\\d+)\\s*lidí");
-        Matcher matcher = viewPattern.matcher(pageText);
-        if (matcher.find()) {
-            try {
-                return Integer.parseInt(matcher.group(1));
-            } catch (NumberFormatException e) {
-                return null;
+        for (Map.Entry<Part.PartType, String> entry : CATEGORY_MAPPINGS.entrySet()) {
+            if (entry.getValue().equals(categoryPath)) {
+                return entry.getKey();
             }
         }
         return null;
     }
-
-    private String generateUniqueHash(String marketplace, String externalId, String title, String price) {
-        try {
-            String input = marketplace + "|" + externalId + "|" + title + "|" + price;
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(input.getBytes(StandardCharsets.UTF_8));
-
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            log.error("Error generating hash", e);
-            return marketplace + "_" + externalId + "_" + System.currentTimeMillis();
-        }
-    }
-
-    private String truncateString(String str, int maxLength) {
-        if (str == null) {
-            return null;
-        }
-        if (str.length() <= maxLength) {
-            return str;
-        }
-        return str.substring(0, maxLength);
-    }
-
-    /**
-     * Create a JSoup connection with optional Tor proxy support
-     */
-    private org.jsoup.Connection createJsoupConnection(String url) {
-        org.jsoup.Connection connection = Jsoup.connect(url)
-                .userAgent(USER_AGENT)
-                .timeout(CONNECT_TIMEOUT)
-                .followRedirects(true);
-
-        // Add Tor proxy if enabled
-        java.net.Proxy proxy = torProxyService.getTorProxy();
-        if (proxy != null) {
-            connection.proxy(proxy);
-            log.debug("Using Tor proxy for request to: {}", url);
-        }
-
-        return connection;
-    }
 }
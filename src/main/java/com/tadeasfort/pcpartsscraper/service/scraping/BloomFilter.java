@@ -0,0 +1,142 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings.
+ * Uses double hashing (h1 + i * h2) to derive the bit positions, so a lookup
+ * costs one pass over the key and k bit tests.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final long expectedInsertions;
+    private final AtomicLong bitsSet = new AtomicLong();
+    private final AtomicLong insertions = new AtomicLong();
+
+    private BloomFilter(long bitSize, int hashFunctions, long expectedInsertions) {
+        int wordCount = (int) Math.max(1, (bitSize + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount * 64;
+        this.hashFunctions = hashFunctions;
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * Create a filter sized for the expected number of keys and false positive
+     * rate, but never bigger than the given memory budget
+     *
+     * @param expectedInsertions number of keys the filter should hold
+     * @param falsePositiveRate  target false positive probability (0 - 1)
+     * @param maxBytes           upper bound for the bit array size
+     * @return empty filter
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate, long maxBytes) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+
+        long optimalBits = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        long maxBits = Math.max(64, Math.min(maxBytes * 8, (long) Integer.MAX_VALUE * 64));
+        long bits = Math.min(optimalBits, maxBits);
+
+        int k = (int) Math.max(1, Math.round((double) bits / n * Math.log(2)));
+        return new BloomFilter(bits, Math.min(k, 16), n);
+    }
+
+    public void put(String key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+
+            if ((current & mask) == 0) {
+                bitsSet.incrementAndGet();
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * @return false if the key was definitely never added, true if it probably was
+     */
+    public boolean mightContain(String key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return share of bits that are set (0 - 1)
+     */
+    public double fillRatio() {
+        return (double) bitsSet.get() / bitSize;
+    }
+
+    /**
+     * Estimate the current false positive probability from the fill ratio
+     *
+     * @return probability that an unknown key is reported as present
+     */
+    public double estimatedFalsePositiveRate() {
+        return Math.pow(fillRatio(), hashFunctions);
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public long sizeInBytes() {
+        return bitSize / 8;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    public long expectedInsertions() {
+        return expectedInsertions;
+    }
+
+    public long insertions() {
+        return insertions.get();
+    }
+
+    private static long hash(String key) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + key.charAt(i);
+        }
+        return mix(h);
+    }
+
+    // MurmurHash3 64-bit finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -4,20 +4,34 @@ import com.tadeasfort.pcpartsscraper.model.Part;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Date;
+
 @Component
 @Slf4j
 @DisallowConcurrentExecution
 @PersistJobDataAfterExecution
 public class CategoryScrapingJob implements Job {
 
+    // Jobs scheduled before the marketplace was part of the job data are all Bazos jobs
+    private static final String DEFAULT_MARKETPLACE = "bazos";
+
+    @Autowired
+    private MarketplaceCrawlScheduler crawlScheduler;
+
     @Autowired
-    private BazosScrapingService bazosService;
+    private AdaptiveScrapeInterval adaptiveInterval;
+
+    @Value("${app.scraping.scheduler.retry-delay-seconds:60}")
+    private int retryDelaySeconds;
 
     @Override
     public void execute(JobExecutionContext context) throws JobExecutionException {
         JobDataMap dataMap = context.getJobDetail().getJobDataMap();
+        String marketplaceName = dataMap.containsKey("marketplace") ? dataMap.getString("marketplace")
+                : DEFAULT_MARKETPLACE;
         String partTypeStr = dataMap.getString("partType");
         String categoryPath = dataMap.getString("categoryPath");
 
@@ -25,27 +39,145 @@ public class CategoryScrapingJob implements Job {
             throw new JobExecutionException("Missing required job parameters: partType or categoryPath");
         }
 
+        MarketplaceService marketplace = crawlScheduler.find(marketplaceName)
+                .orElseThrow(() -> new JobExecutionException("Unknown marketplace: " + marketplaceName));
+
+        // Don't hold a scheduler thread while the marketplace is busy - other marketplaces may need it
+        if (!crawlScheduler.tryStart(marketplaceName)) {
+            log.info("{} is already crawling its maximum number of categories, retrying {} in {} s",
+                    marketplaceName, partTypeStr, retryDelaySeconds);
+            scheduleRetry(context);
+            return;
+        }
+
         try {
+            dropPendingRetry(context);
+
             Part.PartType partType = Part.PartType.valueOf(partTypeStr);
-            log.info("Starting scheduled scraping job for category: {} ({}) - Thread: {}",
-                    partType, categoryPath, Thread.currentThread().getName());
+            log.info("Starting scheduled {} scraping job for category: {} ({}) - Thread: {}",
+                    marketplaceName, partType, categoryPath, Thread.currentThread().getName());
 
-            dataMap.put("lastExecutionStart", System.currentTimeMillis());
+            Long previousStart = dataMap.containsKey("lastExecutionStart") ? dataMap.getLong("lastExecutionStart")
+                    : null;
+            long start = System.currentTimeMillis();
+            dataMap.put("lastExecutionStart", start);
+            dataMap.put("lastExecutionNode", context.getScheduler().getSchedulerInstanceId());
+            if (context.isRecovering()) {
+                log.info("Recovering {} {} - the node running it stopped before it finished", marketplaceName,
+                        partType);
+            }
 
-            bazosService.scrapeCategory(partType, categoryPath);
+            int newListings = marketplace.scrapeCategory(partType, categoryPath);
 
             dataMap.put("lastExecutionComplete", System.currentTimeMillis());
+            dataMap.put("lastNewListings", newListings);
+
+            if (adaptiveInterval.isEnabled() && newListings >= 0) {
+                adaptInterval(context, marketplaceName, partType, newListings, previousStart, start);
+            }
 
-            log.info("Completed scheduled scraping job for category: {} successfully on thread: {}",
-                    partType, Thread.currentThread().getName());
+            log.info("Completed scheduled {} scraping job for category: {} successfully on thread: {}",
+                    marketplaceName, partType, Thread.currentThread().getName());
         } catch (Exception e) {
-            log.error("Error during scheduled scraping for category {} on thread {}: {}",
-                    partTypeStr, Thread.currentThread().getName(), e.getMessage(), e);
+            log.error("Error during scheduled {} scraping for category {} on thread {}: {}",
+                    marketplaceName, partTypeStr, Thread.currentThread().getName(), e.getMessage(), e);
 
             dataMap.put("lastExecutionError", e.getMessage());
             dataMap.put("lastExecutionErrorTime", System.currentTimeMillis());
 
             throw new JobExecutionException(e);
+        } finally {
+            crawlScheduler.finish(marketplaceName);
+        }
+    }
+
+    /**
+     * Fold this run's new listings into the category's arrival rate and move
+     * its trigger to the interval that rate calls for
+     */
+    private void adaptInterval(JobExecutionContext context, String marketplaceName, Part.PartType partType,
+            int newListings, Long previousStart, long start) throws SchedulerException {
+        JobDataMap dataMap = context.getJobDetail().getJobDataMap();
+        long currentInterval = dataMap.containsKey(AdaptiveScrapeInterval.INTERVAL_KEY)
+                ? dataMap.getLong(AdaptiveScrapeInterval.INTERVAL_KEY)
+                : crawlScheduler.getIntervalHours(marketplaceName) * 60L;
+        double elapsedHours = previousStart != null ? (start - previousStart) / 3_600_000.0 : currentInterval / 60.0;
+        Double previousRate = dataMap.containsKey(AdaptiveScrapeInterval.ARRIVAL_RATE_KEY)
+                ? dataMap.getDouble(AdaptiveScrapeInterval.ARRIVAL_RATE_KEY)
+                : null;
+
+        double rate = adaptiveInterval.updateRate(previousRate, newListings, elapsedHours);
+        long interval = adaptiveInterval.intervalMinutes(rate);
+        dataMap.put(AdaptiveScrapeInterval.ARRIVAL_RATE_KEY, rate);
+        dataMap.put(AdaptiveScrapeInterval.INTERVAL_KEY, interval);
+
+        // Small changes aren't worth rewriting the trigger
+        if (Math.abs(interval - currentInterval) * 10 < currentInterval) {
+            return;
+        }
+
+        Scheduler scheduler = context.getScheduler();
+        for (Trigger trigger : scheduler.getTriggersOfJob(context.getJobDetail().getKey())) {
+            if (!(trigger instanceof SimpleTrigger) || !"scraping".equals(trigger.getKey().getGroup())) {
+                continue; // Retry triggers are one-shot
+            }
+            Trigger rescheduled = trigger.getTriggerBuilder()
+                    .withDescription("Triggers " + partType.getDisplayName() + " scraping every " + interval
+                            + " minutes")
+                    .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                            .withIntervalInMinutes((int) interval)
+                            .repeatForever()
+                            .withMisfireHandlingInstructionFireNow())
+                    .startAt(new Date(start + interval * 60_000))
+                    .build();
+            scheduler.rescheduleJob(trigger.getKey(), rescheduled);
+        }
+
+        log.info("{} {}: {} new listings, arrival rate {}/h - interval {} -> {} minutes", marketplaceName, partType,
+                newListings, String.format("%.2f", rate), currentInterval, interval);
+    }
+
+    /**
+     * Fire the job again after the retry delay. A category has at most one
+     * pending retry: a blocked retry pushes itself back, and a blocked regular
+     * fire leaves an already pending retry alone.
+     */
+    private void scheduleRetry(JobExecutionContext context) throws JobExecutionException {
+        JobKey jobKey = context.getJobDetail().getKey();
+        TriggerKey retryKey = retryKey(jobKey);
+        Trigger retry = TriggerBuilder.newTrigger()
+                .withIdentity(retryKey)
+                .forJob(jobKey)
+                .startAt(DateBuilder.futureDate(retryDelaySeconds, DateBuilder.IntervalUnit.SECOND))
+                .build();
+        try {
+            Scheduler scheduler = context.getScheduler();
+            if (retryKey.equals(context.getTrigger().getKey())) {
+                scheduler.rescheduleJob(retryKey, retry);
+            } else if (!scheduler.checkExists(retryKey)) {
+                scheduler.scheduleJob(retry);
+            }
+        } catch (ObjectAlreadyExistsException e) {
+            // Another node scheduled the retry first
+        } catch (SchedulerException e) {
+            throw new JobExecutionException("Failed to schedule retry of " + jobKey.getName(), e);
         }
     }
-}
\ No newline at end of file
+
+    // The regular trigger got the category running - a retry still waiting would only run it again
+    private void dropPendingRetry(JobExecutionContext context) {
+        TriggerKey retryKey = retryKey(context.getJobDetail().getKey());
+        if (retryKey.equals(context.getTrigger().getKey())) {
+            return;
+        }
+        try {
+            context.getScheduler().unscheduleJob(retryKey);
+        } catch (SchedulerException e) {
+            log.warn("Could not drop pending retry {}: {}", retryKey, e.getMessage());
+        }
+    }
+
+    private static TriggerKey retryKey(JobKey jobKey) {
+        return TriggerKey.triggerKey("retry_" + jobKey.getName(), "scraping-retry");
+    }
+}
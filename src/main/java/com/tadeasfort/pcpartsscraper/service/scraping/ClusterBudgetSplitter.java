@@ -0,0 +1,60 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Splits the politeness budget across the live nodes of a cluster.
+ * <p>
+ * Request rates ({@link HostRateLimiter}) and category limits
+ * ({@link MarketplaceCrawlScheduler}) are kept in each node's memory. With
+ * splitting on, every node takes an equal share of them, recomputed from the
+ * Quartz heartbeats, so the cluster as a whole stays within the configured
+ * limits. With splitting off each node uses the full budget and the rates
+ * multiply by the number of nodes.
+ */
+@Component
+@Slf4j
+public class ClusterBudgetSplitter {
+
+    private final ScrapingClusterStatus clusterStatus;
+    private final HostRateLimiter rateLimiter;
+    private final MarketplaceCrawlScheduler crawlScheduler;
+
+    @Value("${app.scraping.cluster.enabled:false}")
+    private boolean clustered;
+
+    @Value("${app.scraping.cluster.split-budget:true}")
+    private boolean splitBudget;
+
+    private volatile int liveNodes = 1;
+
+    public ClusterBudgetSplitter(ScrapingClusterStatus clusterStatus, HostRateLimiter rateLimiter,
+            MarketplaceCrawlScheduler crawlScheduler) {
+        this.clusterStatus = clusterStatus;
+        this.rateLimiter = rateLimiter;
+        this.crawlScheduler = crawlScheduler;
+    }
+
+    @Scheduled(fixedDelayString = "${app.scraping.cluster.checkin-interval-ms:15000}")
+    public void refresh() {
+        if (!clustered || !splitBudget) {
+            return;
+        }
+
+        try {
+            int nodes = clusterStatus.countLiveNodes();
+            if (nodes != liveNodes) {
+                log.info("{} live scraping nodes, each using 1/{} of the politeness budget", nodes, nodes);
+            }
+            liveNodes = nodes;
+            rateLimiter.setShare(1.0 / nodes);
+            crawlScheduler.setShare(1.0 / nodes);
+        } catch (Exception e) {
+            // Keep the last share - the heartbeats are read again on the next refresh
+            log.warn("Could not count live scraping nodes: {}", e.getMessage());
+        }
+    }
+}
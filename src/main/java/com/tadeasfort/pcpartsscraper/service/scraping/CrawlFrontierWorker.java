@@ -0,0 +1,260 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.repository.CrawlFrontierRepository;
+import com.tadeasfort.pcpartsscraper.repository.PartRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detail page workers draining the Bazos part of the crawl frontier.
+ * <p>
+ * Each worker thread claims a batch of URLs, fetches them concurrently (the
+ * per-host rate limiter bounds what is actually in flight), parses them and
+ * writes the parts through the write-behind queue. URLs are removed from the
+ * frontier only after their parts are committed, or when a 304 confirms a
+ * listing that is already stored; failed and unparsable ones are released
+ * with a growing delay. Since claims are leases in the database, workers on
+ * every node share the same frontier and a crashed node's batches are picked
+ * up by the others.
+ */
+@Component
+@Slf4j
+public class CrawlFrontierWorker {
+
+    private final CrawlFrontierRepository frontierRepository;
+    private final PageFetcher pageFetcher;
+    private final BazosListingParser listingParser;
+    private final PartWriteBehindQueue writeQueue;
+    private final ScrapeMetrics metrics;
+    private final PartRepository partRepository;
+
+    @Value("${app.scraping.enabled:true}")
+    private boolean scrapingEnabled;
+
+    @Value("${app.scraping.frontier.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.scraping.frontier.workers:4}")
+    private int workers;
+
+    @Value("${app.scraping.frontier.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.scraping.frontier.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.scraping.frontier.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.scraping.frontier.retry-backoff-seconds:60}")
+    private long retryBackoffSeconds;
+
+    @Value("${app.scraping.frontier.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private final String nodeName = ManagementFactory.getRuntimeMXBean().getName();
+    private volatile boolean running;
+
+    public CrawlFrontierWorker(CrawlFrontierRepository frontierRepository, PageFetcher pageFetcher,
+            BazosListingParser listingParser, PartWriteBehindQueue writeQueue, ScrapeMetrics metrics,
+            PartRepository partRepository) {
+        this.frontierRepository = frontierRepository;
+        this.pageFetcher = pageFetcher;
+        this.listingParser = listingParser;
+        this.writeQueue = writeQueue;
+        this.metrics = metrics;
+        this.partRepository = partRepository;
+    }
+
+    /**
+     * What a claimed URL came back as
+     *
+     * @param part        parsed part, null if there is nothing to store
+     * @param notModified the page answered 304
+     */
+    private record Fetched(Part part, boolean notModified) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || !scrapingEnabled) {
+            return;
+        }
+
+        running = true;
+        for (int i = 0; i < Math.max(1, workers); i++) {
+            String worker = nodeName + "/frontier-worker-" + i;
+            workerThreads.add(Thread.ofPlatform().name("frontier-worker-" + i).start(() -> runWorker(worker)));
+        }
+        log.info("Crawl frontier started: {} workers, batches of {}, {} s lease", workerThreads.size(), batchSize,
+                leaseSeconds);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workerThreads) {
+            worker.interrupt();
+            // Unfinished batches are released by their lease running out
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return frontierRepository.getStats(maxAttempts);
+    }
+
+    private void runWorker(String worker) {
+        while (running) {
+            try {
+                List<CrawlFrontierRepository.ClaimedUrl> batch = frontierRepository.claim("bazos", worker,
+                        batchSize, Duration.ofSeconds(leaseSeconds), maxAttempts);
+                if (batch.isEmpty()) {
+                    Thread.sleep(pollIntervalMs);
+                    continue;
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Crawl frontier worker {} failed: {}", worker, e.getMessage(), e);
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void process(List<CrawlFrontierRepository.ClaimedUrl> batch) throws InterruptedException {
+        List<Future<Fetched>> futures = new ArrayList<>(batch.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (CrawlFrontierRepository.ClaimedUrl url : batch) {
+                futures.add(executor.submit(() -> fetch(url)));
+            }
+        }
+
+        Map<Part.PartType, List<Part>> partsByCategory = new EnumMap<>(Part.PartType.class);
+        List<CrawlFrontierRepository.ClaimedUrl> parsed = new ArrayList<>();
+        Map<String, CrawlFrontierRepository.ClaimedUrl> notModified = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            CrawlFrontierRepository.ClaimedUrl url = batch.get(i);
+            try {
+                Fetched fetched = futures.get(i).get();
+                String externalId = BazosListingParser.extractExternalId(url.url());
+                if (fetched.part() != null) {
+                    partsByCategory.computeIfAbsent(url.partType(), key -> new ArrayList<>()).add(fetched.part());
+                    parsed.add(url);
+                } else if (fetched.notModified() && externalId != null) {
+                    notModified.put(externalId, url);
+                } else {
+                    // Maybe a transient block page - try again with a full fetch
+                    pageFetcher.invalidate(url.url());
+                    release(url, "Page did not parse into a listing");
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                metrics.countFailed("bazos", url.partType(), 1);
+                release(url, cause.getMessage());
+            }
+        }
+
+        // A 304 only proves the page is unchanged - the URL is done if its listing made it into the database
+        List<Long> done = new ArrayList<>();
+        if (!notModified.isEmpty()) {
+            Set<String> stored = partRepository.findExistingExternalIds("bazos", notModified.keySet());
+            notModified.forEach((externalId, url) -> {
+                if (stored.contains(externalId)) {
+                    done.add(url.id());
+                } else {
+                    pageFetcher.invalidate(url.url());
+                    release(url, "Not modified, but the listing is not stored");
+                }
+            });
+        }
+
+        try {
+            // One submission per category so the listing counters can be tagged with it
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            for (Map.Entry<Part.PartType, List<Part>> entry : partsByCategory.entrySet()) {
+                writes.add(writeQueue.submit("bazos", entry.getValue())
+                        .thenAccept(result -> metrics.countListings("bazos", entry.getKey(), result)));
+            }
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+        } catch (RuntimeException e) {
+            log.warn("Failed to store {} frontier listings: {}", parsed.size(), e.getMessage());
+            for (CrawlFrontierRepository.ClaimedUrl url : parsed) {
+                pageFetcher.invalidate(url.url());
+                release(url, e.getMessage());
+            }
+            frontierRepository.complete(done);
+            return;
+        }
+        parsed.forEach(url -> done.add(url.id()));
+        frontierRepository.complete(done);
+    }
+
+    private Fetched fetch(CrawlFrontierRepository.ClaimedUrl url) throws Exception {
+        long start = System.nanoTime();
+        PageFetcher.FetchResult page;
+        try {
+            page = pageFetcher.fetch(url.url());
+        } catch (IOException e) {
+            metrics.recordFetch("bazos", url.partType(), ScrapeMetrics.PageKind.DETAIL, "error",
+                    System.nanoTime() - start, 0);
+            throw e;
+        }
+        metrics.recordFetch("bazos", url.partType(), ScrapeMetrics.PageKind.DETAIL,
+                page.notModified() ? "not_modified" : "ok", page.latencyNanos(), page.body().length);
+        if (page.notModified()) {
+            return new Fetched(null, true);
+        }
+
+        start = System.nanoTime();
+        Part part = listingParser.parse(url.url(), page, url.partType());
+        metrics.recordParse("bazos", url.partType(), System.nanoTime() - start, part != null);
+        if (part == null) {
+            metrics.countFailed("bazos", url.partType(), 1);
+        }
+        return new Fetched(part, false);
+    }
+
+    private void release(CrawlFrontierRepository.ClaimedUrl url, String error) {
+        if (url.attempts() >= maxAttempts) {
+            log.warn("Giving up on {} after {} attempts: {}", url.url(), url.attempts(), error);
+        }
+        // Back off linearly with the number of attempts
+        LocalDateTime notBefore = LocalDateTime.now().plusSeconds(retryBackoffSeconds * url.attempts());
+        frontierRepository.retry(url.id(), error, notBefore);
+    }
+}
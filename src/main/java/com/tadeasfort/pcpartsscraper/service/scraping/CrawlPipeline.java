@@ -0,0 +1,241 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Staged crawler for a single category:
+ * list-page discovery -> detail fetch -> parse -> persist.
+ * <p>
+ * Stages run on their own virtual threads and are joined by bounded queues, so
+ * page N+1 is discovered while the details of page N are still being fetched
+ * and the database save overlaps with network I/O. A full queue blocks the
+ * upstream stage (backpressure) instead of letting it run ahead.
+ */
+@Slf4j
+public class CrawlPipeline {
+
+    /**
+     * Listing URLs found on one list page
+     *
+     * @param listingUrls      listings that still have to be fetched
+     * @param knownListingUrls listings that are already stored and were skipped
+     * @param stopAfterPage    true if discovery should not go past this page
+     */
+    public record ListPage(int page, List<String> listingUrls, List<String> knownListingUrls,
+            boolean hasNextPage, boolean stopAfterPage) {
+
+        public boolean isEmpty() {
+            return listingUrls.isEmpty() && knownListingUrls.isEmpty();
+        }
+    }
+
+    /**
+     * Downloaded detail page waiting to be parsed
+     */
+    public record FetchedListing(String url, PageFetcher.FetchResult page) {
+    }
+
+    /**
+     * Callbacks that do the actual work of each stage
+     */
+    public interface Stages {
+        ListPage discover(int page) throws Exception;
+
+        List<FetchedListing> fetch(ListPage listPage) throws Exception;
+
+        List<Part> parse(List<FetchedListing> fetched);
+
+        void persist(int page, List<Part> parts);
+    }
+
+    private final String name;
+    private final Stages stages;
+    private final int maxPages;
+
+    private final StageQueue<ListPage> discovered;
+    private final StageQueue<List<FetchedListing>> fetched;
+    private final StageQueue<List<Part>> parsed;
+
+    public CrawlPipeline(String name, Stages stages, int queueCapacity, int maxPages) {
+        this.name = name;
+        this.stages = stages;
+        this.maxPages = maxPages;
+        this.discovered = new StageQueue<>("discovered", queueCapacity);
+        this.fetched = new StageQueue<>("fetched", queueCapacity);
+        this.parsed = new StageQueue<>("parsed", queueCapacity);
+    }
+
+    /**
+     * Run the pipeline until discovery runs out of pages or decides to stop early
+     */
+    public void run() throws InterruptedException {
+        List<Thread> threads = List.of(
+                Thread.ofVirtual().name("pipeline-discover-" + name).start(this::discoverStage),
+                Thread.ofVirtual().name("pipeline-fetch-" + name).start(this::fetchStage),
+                Thread.ofVirtual().name("pipeline-parse-" + name).start(this::parseStage),
+                Thread.ofVirtual().name("pipeline-persist-" + name).start(this::persistStage));
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            throw e;
+        }
+
+        log.info("Pipeline {} finished - {}", name, describeQueues());
+    }
+
+    /**
+     * Snapshot of every queue's current and peak depth plus the time the producer
+     * spent blocked on it. A queue that is always full with a high blocked time
+     * means the stage after it is the bottleneck.
+     */
+    public String describeQueues() {
+        return discovered.describe() + ", " + fetched.describe() + ", " + parsed.describe();
+    }
+
+    private void discoverStage() {
+        try {
+            for (int page = 1; page <= maxPages; page++) {
+                ListPage listPage = stages.discover(page);
+
+                if (listPage.isEmpty()) {
+                    log.info("No more listings found on page {} for {}, stopping", page, name);
+                    break;
+                }
+
+                discovered.put(page, listPage);
+
+                if (listPage.stopAfterPage()) {
+                    break;
+                }
+
+                if (!listPage.hasNextPage()) {
+                    log.info("No next page found for {} on page {} - stopping pagination", name, page);
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error discovering pages for {}: {}", name, e.getMessage(), e);
+        } finally {
+            discovered.close();
+        }
+    }
+
+    private void fetchStage() {
+        try {
+            StageQueue.Item<ListPage> item;
+            while ((item = discovered.take()) != null) {
+                try {
+                    fetched.put(item.page(), stages.fetch(item.payload()));
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    log.warn("Error fetching listings of page {} for {}: {}", item.page(), name, e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            fetched.close();
+        }
+    }
+
+    private void parseStage() {
+        try {
+            StageQueue.Item<List<FetchedListing>> item;
+            while ((item = fetched.take()) != null) {
+                try {
+                    parsed.put(item.page(), stages.parse(item.payload()));
+                } catch (RuntimeException e) {
+                    log.warn("Error parsing listings of page {} for {}: {}", item.page(), name, e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            parsed.close();
+        }
+    }
+
+    private void persistStage() {
+        try {
+            StageQueue.Item<List<Part>> item;
+            while ((item = parsed.take()) != null) {
+                try {
+                    stages.persist(item.page(), item.payload());
+                } catch (RuntimeException e) {
+                    log.warn("Error persisting page {} for {}: {}", item.page(), name, e.getMessage());
+                }
+                log.debug("Pipeline {} after page {}: {}", name, item.page(), describeQueues());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Bounded hand-off queue between two stages with depth statistics
+     */
+    static final class StageQueue<T> {
+
+        record Item<T>(int page, T payload) {
+        }
+
+        private static final Item<?> END = new Item<>(-1, null);
+
+        private final String name;
+        private final BlockingQueue<Item<T>> queue;
+        private final AtomicInteger peakDepth = new AtomicInteger();
+        private final AtomicLong blockedNanos = new AtomicLong();
+
+        StageQueue(String name, int capacity) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+
+        void put(int page, T payload) throws InterruptedException {
+            long start = System.nanoTime();
+            queue.put(new Item<>(page, payload));
+            blockedNanos.addAndGet(System.nanoTime() - start);
+            peakDepth.accumulateAndGet(queue.size(), Math::max);
+        }
+
+        /**
+         * @return next item or null once the producer has closed the queue
+         */
+        Item<T> take() throws InterruptedException {
+            Item<T> item = queue.take();
+            return item == END ? null : item;
+        }
+
+        @SuppressWarnings("unchecked")
+        void close() {
+            try {
+                queue.put((Item<T>) END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int depth() {
+            return queue.size();
+        }
+
+        String describe() {
+            return String.format("%s queue: depth %d, peak %d, producer blocked %d ms",
+                    name, depth(), peakDepth.get(), blockedNanos.get() / 1_000_000);
+        }
+    }
+}
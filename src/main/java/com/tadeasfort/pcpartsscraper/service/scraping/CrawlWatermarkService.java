@@ -0,0 +1,67 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.CrawlWatermark;
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.repository.CrawlWatermarkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Loads and advances the per-category crawl high-water marks
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CrawlWatermarkService {
+
+    private final CrawlWatermarkRepository watermarkRepository;
+
+    /**
+     * @return newest listing ID seen by the last completed crawl of the category
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findNewestListingId(String marketplace, Part.PartType category) {
+        return watermarkRepository.findByMarketplaceAndCategory(marketplace, category)
+                .map(CrawlWatermark::getNewestListingId);
+    }
+
+    /**
+     * Move the watermark forward after a completed crawl. A lower ID than the
+     * stored one never moves it back.
+     *
+     * @param newestListingId   highest listing ID seen by the crawl
+     * @param newestListingDate creation date of the newest listing, may be null
+     */
+    @Transactional
+    public void advance(String marketplace, Part.PartType category, long newestListingId,
+            LocalDateTime newestListingDate) {
+        try {
+            CrawlWatermark watermark = watermarkRepository.findByMarketplaceAndCategory(marketplace, category)
+                    .orElseGet(() -> CrawlWatermark.builder()
+                            .marketplace(marketplace)
+                            .category(category)
+                            .newestListingId(-1L)
+                            .build());
+
+            if (newestListingId <= watermark.getNewestListingId()) {
+                return;
+            }
+
+            watermark.setNewestListingId(newestListingId);
+            if (newestListingDate != null) {
+                watermark.setNewestListingDate(newestListingDate);
+            }
+            watermarkRepository.save(watermark);
+            log.debug("Watermark for {} {} advanced to listing {}", marketplace, category, newestListingId);
+        } catch (DataIntegrityViolationException e) {
+            // Another crawl of the same category created the row first; its watermark is just as good
+            log.warn("Could not save watermark for {} {}: {}", marketplace, category, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.HttpStatusException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Politeness limiter shared by all scraping threads.
+ * Every request to a host has to take a concurrency slot and a token from the
+ * token bucket of that host and route (direct or a given proxy), so concurrent
+ * category jobs together never exceed the limits.
+ * <p>
+ * With adaptive limiting the bucket's rate is steered by an
+ * {@link AimdRateController}: it climbs while responses are fast and drops
+ * when the site starts throttling, between the configured min and max rates.
+ * The current rate is published as the {@code scraping.rate.limit} gauge.
+ * <p>
+ * The limits are the budget of all nodes together. In a cluster each node only
+ * uses its {@link #setShare share} of the rate, so adding nodes doesn't
+ * multiply the requests a host receives.
+ */
+@Component
+@Slf4j
+public class HostRateLimiter {
+
+    /** Route of requests made without a proxy */
+    public static final String DIRECT = "direct";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.scraping.rate-limit.requests-per-second:4.0}")
+    private double requestsPerSecond;
+
+    @Value("${app.scraping.rate-limit.burst:4}")
+    private int burst;
+
+    @Value("${app.scraping.rate-limit.max-concurrent-per-host:4}")
+    private int maxConcurrentPerHost;
+
+    @Value("${app.scraping.rate-limit.adaptive.enabled:true}")
+    private boolean adaptive;
+
+    @Value("${app.scraping.rate-limit.adaptive.min-requests-per-second:0.5}")
+    private double minRequestsPerSecond;
+
+    @Value("${app.scraping.rate-limit.adaptive.max-requests-per-second:20.0}")
+    private double maxRequestsPerSecond;
+
+    @Value("${app.scraping.rate-limit.adaptive.additive-increase:0.5}")
+    private double additiveIncrease;
+
+    @Value("${app.scraping.rate-limit.adaptive.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    @Value("${app.scraping.rate-limit.adaptive.latency-threshold-ms:3000}")
+    private long latencyThresholdMs;
+
+    private final Map<String, HostBudget> budgets = new ConcurrentHashMap<>();
+
+    // Fraction of the rate this node may use, below 1 when the budget is split across cluster nodes
+    private volatile double share = 1.0;
+
+    public HostRateLimiter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Block until a direct request to the given URL's host is allowed
+     *
+     * @param url target URL
+     * @return permit that must be closed once the response has been read
+     */
+    public Permit acquire(String url) throws InterruptedException {
+        return acquire(url, DIRECT);
+    }
+
+    /**
+     * Block until a request to the given URL's host over the given route is allowed
+     *
+     * @param url   target URL
+     * @param route {@link #DIRECT} or an identifier of the proxy the request goes through
+     * @return permit that must be closed once the response has been read
+     */
+    public Permit acquire(String url, String route) throws InterruptedException {
+        String host = hostOf(url);
+        HostBudget budget = budgets.computeIfAbsent(host + "|" + route, key -> createBudget(host, route));
+
+        budget.concurrency.acquire();
+        try {
+            long waitNanos = budget.bucket.reserve();
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        } catch (InterruptedException e) {
+            budget.concurrency.release();
+            throw e;
+        }
+        return new Permit(budget);
+    }
+
+    /**
+     * Set the fraction of every host's rate this node may use
+     *
+     * @param share between 0 (exclusive) and 1
+     */
+    public void setShare(double share) {
+        if (share == this.share) {
+            return;
+        }
+        this.share = share;
+        budgets.values().forEach(HostBudget::applyRate);
+        log.info("Using {}% of the per-host request rates", String.format("%.0f", share * 100));
+    }
+
+    public double getShare() {
+        return share;
+    }
+
+    /**
+     * Get the configured concurrency limit per host
+     *
+     * @return maximum number of in-flight requests per host
+     */
+    public int getMaxConcurrentPerHost() {
+        return maxConcurrentPerHost;
+    }
+
+    private HostBudget createBudget(String host, String route) {
+        log.info("Creating rate limit for host {} via {}: {} req/s{}, burst {}, max {} concurrent requests",
+                host, route, requestsPerSecond,
+                adaptive ? " (adaptive " + minRequestsPerSecond + " - " + maxRequestsPerSecond + ")" : "",
+                burst, maxConcurrentPerHost);
+
+        AimdRateController controller = adaptive
+                ? new AimdRateController(requestsPerSecond, minRequestsPerSecond, maxRequestsPerSecond,
+                        additiveIncrease, decreaseFactor, TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs))
+                : null;
+        double rate = controller != null ? controller.rate() : requestsPerSecond;
+        HostBudget budget = new HostBudget(host, route, new Semaphore(Math.max(1, maxConcurrentPerHost), true),
+                new TokenBucket(rate * share, Math.max(1, burst)), controller, requestsPerSecond, this::getShare);
+
+        Gauge.builder("scraping.rate.limit", budget.bucket, TokenBucket::rate)
+                .description("Current request rate limit in requests per second")
+                .baseUnit("requests/s")
+                .tag("host", host)
+                .tag("route", route)
+                .register(meterRegistry);
+        return budget;
+    }
+
+    static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /**
+     * Concurrency slot for a single request. Report how the request went before
+     * closing it so the adaptive rate can react.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final HostBudget budget;
+        private boolean released;
+
+        private Permit(HostBudget budget) {
+            this.budget = budget;
+        }
+
+        /**
+         * Report a response
+         *
+         * @param status       HTTP status code
+         * @param latencyNanos time from sending the request to reading the body
+         */
+        public void onResponse(int status, long latencyNanos) {
+            if (budget.controller != null) {
+                budget.adjust(budget.controller.classify(status, latencyNanos));
+            }
+        }
+
+        /**
+         * Report a request that failed without a usable response
+         */
+        public void onFailure(IOException e) {
+            if (budget.controller == null) {
+                return;
+            }
+            if (e instanceof HttpStatusException statusException) {
+                budget.adjust(budget.controller.classify(statusException.getStatusCode(), 0));
+            } else if (e instanceof SocketException || e instanceof SocketTimeoutException
+                    || e instanceof HttpTimeoutException) {
+                // Resets, refused connections and timeouts are how an overloaded site pushes back
+                budget.adjust(AimdRateController.Signal.THROTTLED);
+            } else {
+                budget.adjust(AimdRateController.Signal.NEUTRAL);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                budget.concurrency.release();
+            }
+        }
+    }
+
+    /**
+     * @param configuredRate rate when not adaptive
+     * @param share          this node's fraction of the rate
+     */
+    private record HostBudget(String host, String route, Semaphore concurrency, TokenBucket bucket,
+            AimdRateController controller, double configuredRate, DoubleSupplier share) {
+
+        void applyRate() {
+            bucket.setRate((controller != null ? controller.rate() : configuredRate) * share.getAsDouble());
+        }
+
+        void adjust(AimdRateController.Signal signal) {
+            double before = controller.rate();
+            double after = controller.update(signal);
+            applyRate();
+            if (after < before) {
+                log.info("Rate limit for {} via {} lowered to {} req/s ({})",
+                        host, route, String.format("%.2f", after), signal);
+            }
+        }
+    }
+
+    /**
+     * Token bucket that hands out reservations - callers that find the bucket
+     * empty are told how long to wait for their token instead of spinning.
+     */
+    static final class TokenBucket {
+        private double ratePerSecond;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double ratePerSecond, double capacity) {
+            this.ratePerSecond = ratePerSecond;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized long reserve() {
+            refill();
+
+            tokens -= 1;
+            if (tokens >= 0) {
+                return 0;
+            }
+            return (long) (-tokens / ratePerSecond * 1_000_000_000L);
+        }
+
+        synchronized void setRate(double ratePerSecond) {
+            // Credit the time elapsed so far at the old rate first
+            refill();
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        synchronized double rate() {
+            return ratePerSecond;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * ratePerSecond);
+            lastRefillNanos = now;
+        }
+    }
+}
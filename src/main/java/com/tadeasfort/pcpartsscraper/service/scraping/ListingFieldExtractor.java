@@ -0,0 +1,425 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the text fields of a Bazos listing in a single pass.
+ * <p>
+ * One Aho–Corasick scan finds the first occurrence of every label anchor
+ * (Jméno:, Telefon:, Vidělo:, the description start/end phrases, TOP) and each
+ * field is then read from its anchor instead of re-scanning the whole page.
+ * Patterns are compiled once. The results are the same as the former
+ * per-field regex methods of the listing parser.
+ */
+public final class ListingFieldExtractor {
+
+    private static final Pattern PRICE_IN_TEXT_PATTERN = Pattern
+            .compile("(?i)cena\\s*[:\\-]?\\s*(\\d+(?:\\s*\\d*)*)\\s*(?:kč|czk|,-)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LOCATION_PATTERN = Pattern.compile("([A-Za-z\\s]+)(\\d{3}\\s*\\d{2})");
+    private static final Pattern DATE_PATTERN = Pattern.compile("\\[(\\d+\\.\\d+\\.\\s*\\d+)\\]");
+    private static final Pattern VIEW_COUNT_PATTERN = Pattern.compile("Vidělo:(\\d+)\\s*lidí");
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("d.M. yyyy");
+
+    private static final String SELLER_LABEL = "Jméno:";
+    private static final String PHONE_LABEL = "Telefon:";
+    private static final String VIEW_COUNT_LABEL = "Vidělo:";
+    private static final String PROMOTED_LABEL = "TOP";
+
+    // Common description start and end phrases
+    private static final String[] DESCRIPTION_STARTS = { "výkonnější než", "Záruka", "Preferuji", "Prodám",
+            "Nabízím" };
+    private static final String[] DESCRIPTION_ENDS = { "Cena pevná", SELLER_LABEL, PHONE_LABEL, "Lokalita:",
+            "©2025" };
+
+    private static final AnchorScanner ANCHORS;
+    private static final int SELLER;
+    private static final int PHONE;
+    private static final int VIEW_COUNT;
+    private static final int PROMOTED;
+    private static final int[] DESCRIPTION_START_IDS;
+    private static final int[] DESCRIPTION_END_IDS;
+
+    static {
+        List<String> labels = new ArrayList<>();
+        DESCRIPTION_START_IDS = register(labels, DESCRIPTION_STARTS);
+        DESCRIPTION_END_IDS = register(labels, DESCRIPTION_ENDS);
+        SELLER = register(labels, SELLER_LABEL)[0];
+        PHONE = register(labels, PHONE_LABEL)[0];
+        VIEW_COUNT = register(labels, VIEW_COUNT_LABEL)[0];
+        PROMOTED = register(labels, PROMOTED_LABEL)[0];
+        ANCHORS = new AnchorScanner(labels.toArray(new String[0]));
+    }
+
+    private ListingFieldExtractor() {
+    }
+
+    /**
+     * Mutable extraction result, meant to be reused across listings
+     */
+    public static final class ListingFields {
+        private BigDecimal price;
+        private String location;
+        private String description;
+        private LocalDateTime dateCreated;
+        private String sellerName;
+        private String phone;
+        private Integer viewCount;
+        private boolean promoted;
+
+        public void reset() {
+            price = null;
+            location = null;
+            description = null;
+            dateCreated = null;
+            sellerName = null;
+            phone = null;
+            viewCount = null;
+            promoted = false;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public LocalDateTime getDateCreated() {
+            return dateCreated;
+        }
+
+        public String getSellerName() {
+            return sellerName;
+        }
+
+        public String getPhone() {
+            return phone;
+        }
+
+        public Integer getViewCount() {
+            return viewCount;
+        }
+
+        public boolean isPromoted() {
+            return promoted;
+        }
+    }
+
+    /**
+     * Extract all listing fields from the page text
+     *
+     * @param text   page text
+     * @param fields result to fill, reset first
+     * @return the given result
+     */
+    public static ListingFields extract(String text, ListingFields fields) {
+        fields.reset();
+        int[] first = ANCHORS.firstOccurrences(text);
+
+        fields.price = extractPrice(text);
+        fields.location = extractLocation(text);
+        fields.description = extractDescription(text, first);
+        fields.dateCreated = extractDateCreated(text);
+        fields.sellerName = restOfLine(text, SELLER_LABEL, first[SELLER]);
+        fields.phone = restOfLine(text, PHONE_LABEL, first[PHONE]);
+        fields.viewCount = extractViewCount(text, first[VIEW_COUNT]);
+        fields.promoted = first[PROMOTED] >= 0;
+        return fields;
+    }
+
+    /**
+     * Find the first "&lt;digits and spaces&gt; Kč" amount in one linear scan,
+     * falling back to a "cena: ..." amount. Null means the price is only given
+     * in the text ("v textu", "dohodou", "na dotaz") or not at all.
+     */
+    static BigDecimal extractPrice(String text) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (!isDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            // A number starting here runs over digits and whitespace
+            int end = i + 1;
+            while (end < length && (isDigit(text.charAt(end)) || isWhitespace(text.charAt(end)))) {
+                end++;
+            }
+            if (text.startsWith("Kč", end)) {
+                return new BigDecimal(digitsOf(text, i, end));
+            }
+            i = end;
+        }
+
+        // Try to find price in text format (e.g., "cena: 5000 Kč")
+        Matcher textMatcher = PRICE_IN_TEXT_PATTERN.matcher(text);
+        if (textMatcher.find()) {
+            try {
+                return new BigDecimal(WHITESPACE_PATTERN.matcher(textMatcher.group(1)).replaceAll(""));
+            } catch (NumberFormatException e) {
+                // No usable number
+            }
+        }
+        return null;
+    }
+
+    static String extractLocation(String text) {
+        Matcher matcher = LOCATION_PATTERN.matcher(text);
+        if (matcher.find()) {
+            return (matcher.group(1) + matcher.group(2)).trim();
+        }
+        return null;
+    }
+
+    /**
+     * Parse the "[4.7. 2025]" listing date, or now if there is none
+     */
+    static LocalDateTime extractDateCreated(String text) {
+        Matcher matcher = DATE_PATTERN.matcher(text);
+        if (matcher.find()) {
+            try {
+                return LocalDate.parse(matcher.group(1).trim(), DATE_FORMAT).atStartOfDay();
+            } catch (DateTimeParseException e) {
+                // Fall through to now
+            }
+        }
+        return LocalDateTime.now();
+    }
+
+    static String extractDescription(String text) {
+        return extractDescription(text, ANCHORS.firstOccurrences(text));
+    }
+
+    static String extractSellerName(String text) {
+        return restOfLine(text, SELLER_LABEL, text.indexOf(SELLER_LABEL));
+    }
+
+    static String extractPhone(String text) {
+        return restOfLine(text, PHONE_LABEL, text.indexOf(PHONE_LABEL));
+    }
+
+    static Integer extractViewCount(String text) {
+        return extractViewCount(text, text.indexOf(VIEW_COUNT_LABEL));
+    }
+
+    private static String extractDescription(String text, int[] first) {
+        // Earliest start phrase, then the earliest end phrase after it
+        int descStart = -1;
+        for (int id : DESCRIPTION_START_IDS) {
+            int index = first[id];
+            if (index != -1 && (descStart == -1 || index < descStart)) {
+                descStart = index;
+            }
+        }
+        if (descStart == -1) {
+            return null;
+        }
+
+        int descEnd = -1;
+        for (int id : DESCRIPTION_END_IDS) {
+            int index = first[id];
+            if (index > descStart && (descEnd == -1 || index < descEnd)) {
+                descEnd = index;
+            }
+        }
+
+        if (descEnd != -1) {
+            String description = text.substring(descStart, descEnd).trim();
+            if (description.length() > 10 && description.length() < 2000) {
+                return description;
+            }
+        }
+        return null;
+    }
+
+    // Text after the first "label" that is followed by something on the same line
+    private static String restOfLine(String text, String label, int firstIndex) {
+        for (int index = firstIndex; index >= 0; index = text.indexOf(label, index + 1)) {
+            int from = index + label.length();
+            if (from < text.length() && text.charAt(from) != '\n') {
+                int end = text.indexOf('\n', from);
+                return text.substring(from, end < 0 ? text.length() : end).trim();
+            }
+        }
+        return null;
+    }
+
+    private static Integer extractViewCount(String text, int firstIndex) {
+        if (firstIndex < 0) {
+            return null;
+        }
+        Matcher matcher = VIEW_COUNT_PATTERN.matcher(text);
+        if (matcher.find(firstIndex)) {
+            try {
+                return Integer.parseInt(matcher.group(1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String digitsOf(String text, int from, int to) {
+        StringBuilder digits = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    // Same character classes as \d and \s in java.util.regex without UNICODE_CHARACTER_CLASS
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static int[] register(List<String> labels, String... newLabels) {
+        int[] ids = new int[newLabels.length];
+        for (int i = 0; i < newLabels.length; i++) {
+            int existing = labels.indexOf(newLabels[i]);
+            if (existing >= 0) {
+                ids[i] = existing;
+            } else {
+                ids[i] = labels.size();
+                labels.add(newLabels[i]);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Aho–Corasick automaton reporting the first start index of every label.
+     * The transition table is a full DFA over the labels' alphabet, so the scan
+     * is one table lookup per character.
+     */
+    static final class AnchorScanner {
+        private static final int ALPHABET_LIMIT = 0x180; // Latin-1 plus Latin Extended-A
+
+        private final int labelCount;
+        private final int[] labelLengths;
+        private final int[] charClass = new int[ALPHABET_LIMIT];
+        private final int[][] transitions;
+        private final int[][] outputs;
+
+        AnchorScanner(String[] labels) {
+            this.labelCount = labels.length;
+            this.labelLengths = new int[labels.length];
+
+            int classes = 1; // class 0 is every character that appears in no label
+            for (String label : labels) {
+                for (char c : label.toCharArray()) {
+                    if (c >= ALPHABET_LIMIT) {
+                        throw new IllegalArgumentException("Unsupported anchor character: " + c);
+                    }
+                    if (charClass[c] == 0) {
+                        charClass[c] = classes++;
+                    }
+                }
+            }
+
+            // Trie
+            List<int[]> gotos = new ArrayList<>();
+            List<List<Integer>> outs = new ArrayList<>();
+            gotos.add(newRow(classes));
+            outs.add(new ArrayList<>());
+            for (int id = 0; id < labels.length; id++) {
+                labelLengths[id] = labels[id].length();
+                int state = 0;
+                for (char c : labels[id].toCharArray()) {
+                    int cls = charClass[c];
+                    if (gotos.get(state)[cls] < 0) {
+                        gotos.get(state)[cls] = gotos.size();
+                        gotos.add(newRow(classes));
+                        outs.add(new ArrayList<>());
+                    }
+                    state = gotos.get(state)[cls];
+                }
+                outs.get(state).add(id);
+            }
+
+            // Failure links folded into a full transition table (BFS order)
+            int[] fail = new int[gotos.size()];
+            Queue<Integer> queue = new ArrayDeque<>();
+            int[] root = gotos.get(0);
+            for (int cls = 0; cls < classes; cls++) {
+                if (root[cls] < 0) {
+                    root[cls] = 0;
+                } else {
+                    fail[root[cls]] = 0;
+                    queue.add(root[cls]);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outs.get(state).addAll(outs.get(fail[state]));
+                int[] row = gotos.get(state);
+                for (int cls = 0; cls < classes; cls++) {
+                    int next = row[cls];
+                    if (next < 0) {
+                        row[cls] = gotos.get(fail[state])[cls];
+                    } else {
+                        fail[next] = gotos.get(fail[state])[cls];
+                        queue.add(next);
+                    }
+                }
+            }
+
+            this.transitions = gotos.toArray(new int[0][]);
+            this.outputs = new int[outs.size()][];
+            for (int state = 0; state < outs.size(); state++) {
+                outputs[state] = outs.get(state).stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        /**
+         * @return first start index of each label in the text, -1 if absent
+         */
+        int[] firstOccurrences(String text) {
+            int[] first = new int[labelCount];
+            Arrays.fill(first, -1);
+            int remaining = labelCount;
+
+            int state = 0;
+            for (int i = 0; i < text.length() && remaining > 0; i++) {
+                char c = text.charAt(i);
+                state = transitions[state][c < ALPHABET_LIMIT ? charClass[c] : 0];
+                for (int id : outputs[state]) {
+                    if (first[id] < 0) {
+                        first[id] = i - labelLengths[id] + 1;
+                        remaining--;
+                    }
+                }
+            }
+            return first;
+        }
+
+        private static int[] newRow(int classes) {
+            int[] row = new int[classes];
+            Arrays.fill(row, -1);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+
+import java.math.BigDecimal;
+
+/**
+ * 64-bit FNV-1a fingerprint of the listing fields a seller (or the site) can
+ * change after the listing is posted: price, description, view count and the
+ * promoted flag. Comparing it with the stored fingerprint tells whether a
+ * re-scraped listing needs an UPDATE at all.
+ */
+public final class ListingFingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // Separates fields so that moving characters between them changes the fingerprint
+    private static final char FIELD_SEPARATOR = '\u001f';
+
+    private ListingFingerprint() {
+    }
+
+    public static long of(Part part) {
+        return of(part.getPrice(), part.getDescription(), part.getViewCount(), part.getIsPromoted());
+    }
+
+    public static long of(BigDecimal price, String description, Integer viewCount, Boolean promoted) {
+        long hash = FNV_OFFSET_BASIS;
+        // 1500 and 1500.00 (the scale the column stores) are the same price
+        hash = mix(hash, price != null ? price.stripTrailingZeros().toPlainString() : null);
+        hash = mix(hash, description);
+        hash = mix(hash, viewCount != null ? viewCount.toString() : null);
+        hash = mix(hash, promoted != null ? promoted.toString() : null);
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+            }
+        } else {
+            // Distinguish null from an empty string
+            hash = (hash ^ 0xff) * FNV_PRIME;
+        }
+        return (hash ^ FIELD_SEPARATOR) * FNV_PRIME;
+    }
+}
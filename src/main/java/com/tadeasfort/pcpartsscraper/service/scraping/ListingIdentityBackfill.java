@@ -0,0 +1,92 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.ListingIdentity;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-off migration from the hex SHA-256 unique_hash column to the two
+ * ListingIdentity columns. Rows without an identity get one computed from their
+ * stored fields, then unique_hash (and the two indexes on it) is dropped.
+ * Once everything is migrated a startup only costs one empty query.
+ * <p>
+ * Takes the EntityManagerFactory so that it runs after Hibernate has added the
+ * new columns, and the scheduler only starts crawling after all beans are
+ * initialized, so nothing inserts parts while it runs.
+ */
+@Component
+@Slf4j
+public class ListingIdentityBackfill {
+
+    private static final int BATCH_SIZE = 5000;
+
+    private static final String SELECT_MISSING = "SELECT id, marketplace, external_id, title, price FROM parts "
+            + "WHERE identity_hi IS NULL AND id > ? ORDER BY id LIMIT ?";
+    private static final String UPDATE_IDENTITY = "UPDATE parts SET identity_hi = ?, identity_lo = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ListingIdentityBackfill(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        long updated = 0;
+        long conflicts = 0;
+
+        // Keyset pagination on id, so rows that can't be updated are skipped instead of selected again
+        List<Row> rows;
+        while (!(rows = jdbcTemplate.query(SELECT_MISSING, (rs, rowNum) -> new Row(rs.getLong("id"),
+                ListingIdentity.compute(rs.getString("marketplace"), rs.getString("external_id"),
+                        rs.getString("title"), rs.getBigDecimal("price"))), lastId, BATCH_SIZE)).isEmpty()) {
+            try {
+                updateBatch(rows);
+                updated += rows.size();
+            } catch (DuplicateKeyException e) {
+                // Rows whose identity is already taken (the same listing stored twice) keep a null identity;
+                // Part compares those by id
+                for (Row row : rows) {
+                    try {
+                        updateBatch(List.of(row));
+                        updated++;
+                    } catch (DuplicateKeyException duplicate) {
+                        conflicts++;
+                    }
+                }
+            }
+            lastId = rows.getLast().id();
+        }
+
+        if (updated > 0 || conflicts > 0) {
+            log.info("Backfilled listing identity of {} parts in {} ms ({} duplicates left without one)",
+                    updated, System.currentTimeMillis() - start, conflicts);
+        }
+
+        try {
+            jdbcTemplate.execute("ALTER TABLE parts DROP COLUMN IF EXISTS unique_hash");
+        } catch (DataAccessException e) {
+            log.warn("Could not drop the old unique_hash column: {}", e.getMessage());
+        }
+    }
+
+    private void updateBatch(List<Row> rows) {
+        jdbcTemplate.batchUpdate(UPDATE_IDENTITY, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.identity().hi());
+            ps.setLong(2, row.identity().lo());
+            ps.setLong(3, row.id());
+        });
+    }
+
+    private record Row(long id, ListingIdentity identity) {
+    }
+}
@@ -0,0 +1,258 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.repository.PartBulkInsertRepository;
+import com.tadeasfort.pcpartsscraper.repository.PartRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Document;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Re-runs the current listing parser over the {@link PageArchive} and upserts
+ * the results, so parser fixes reach existing rows without crawling again.
+ * <p>
+ * The archive is read in write order. List pages tell which category each
+ * listing was found in, so listings missing from the database can be inserted
+ * with the right part type; existing rows keep theirs. Only the categories of
+ * the most recently seen listings are kept, since a listing's detail page is
+ * archived soon after the list page it was found on. When a listing was
+ * archived more than once the newest copy wins. New listings go through the
+ * {@link PartBulkInsertRepository} (COPY on PostgreSQL).
+ */
+@Service
+@Slf4j
+public class ListingReparseService {
+
+    private static final String MARKETPLACE = "bazos";
+    private static final int BATCH_SIZE = 500;
+    // Listing categories remembered from list pages - a few MB, independent of the archive size
+    private static final int MAX_REMEMBERED_CATEGORIES = 100_000;
+
+    private final PageArchive pageArchive;
+    private final BazosListingParser listingParser;
+    private final BazosScrapingService bazosService;
+    private final PartRepository partRepository;
+    private final PartBulkInsertRepository bulkInsertRepository;
+    private final SeenListingFilter seenListingFilter;
+    private final TransactionTemplate transaction;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public ListingReparseService(PageArchive pageArchive, BazosListingParser listingParser,
+            BazosScrapingService bazosService, PartRepository partRepository,
+            PartBulkInsertRepository bulkInsertRepository, SeenListingFilter seenListingFilter,
+            PlatformTransactionManager transactionManager) {
+        this.pageArchive = pageArchive;
+        this.listingParser = listingParser;
+        this.bazosService = bazosService;
+        this.partRepository = partRepository;
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.seenListingFilter = seenListingFilter;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Start a reparse in the background
+     *
+     * @return false if a reparse is already running
+     */
+    public boolean start() {
+        if (running.get()) {
+            return false;
+        }
+        Thread.ofVirtual().name("listing-reparse").start(this::reparse);
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return counters of the last finished reparse
+     */
+    public Map<String, Object> getLastRun() {
+        return lastRun;
+    }
+
+    /**
+     * Reparse the whole archive and upsert the parsed listings
+     *
+     * @return counters of this run, or the last run if one was already in progress
+     */
+    public Map<String, Object> reparse() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Listing reparse already running");
+            return lastRun;
+        }
+
+        long start = System.currentTimeMillis();
+        Run run = new Run();
+        try {
+            log.info("Reparsing archived pages");
+            run.pagesRead = pageArchive.scan(page -> accept(run, page));
+            flush(run);
+        } catch (IOException e) {
+            log.error("Failed to read page archive: {}", e.getMessage(), e);
+            run.error = e.getMessage();
+        } finally {
+            lastRun = run.toMap(System.currentTimeMillis() - start);
+            running.set(false);
+        }
+
+        log.info("Reparse finished: {}", lastRun);
+        return lastRun;
+    }
+
+    private void accept(Run run, PageArchive.ArchivedPage archived) {
+        String externalId = BazosListingParser.extractExternalId(archived.url());
+
+        if (externalId == null) {
+            Part.PartType partType = bazosService.categoryOf(archived.url());
+            if (partType != null) {
+                rememberCategory(run, archived, partType);
+            }
+            return;
+        }
+
+        Part part = listingParser.parse(archived.url(), archived.toFetchResult(), run.categories.get(externalId));
+        if (part == null) {
+            run.unparseable++;
+            return;
+        }
+        run.listingsParsed++;
+        run.batch.put(externalId, part);
+
+        if (run.batch.size() >= BATCH_SIZE) {
+            flush(run);
+        }
+    }
+
+    private void rememberCategory(Run run, PageArchive.ArchivedPage archived, Part.PartType partType) {
+        try {
+            run.listPages++;
+            Document listPage = archived.toFetchResult().parse();
+            for (String listingUrl : BazosScrapingService.extractListingUrls(listPage, bazosService.getBaseUrl())) {
+                run.categories.put(BazosListingParser.extractExternalId(listingUrl), partType);
+            }
+        } catch (IOException e) {
+            log.debug("Could not parse archived list page {}: {}", archived.url(), e.getMessage());
+        }
+    }
+
+    private void flush(Run run) {
+        if (run.batch.isEmpty()) {
+            return;
+        }
+
+        Map<String, Part> batch = new LinkedHashMap<>(run.batch);
+        run.batch.clear();
+
+        try {
+            List<Part> inserted = transaction.execute(status -> upsert(run, batch));
+            seenListingFilter.recordAll(inserted);
+        } catch (DataAccessException e) {
+            run.failed += batch.size();
+            log.warn("Failed to upsert reparsed batch of {} listings: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private List<Part> upsert(Run run, Map<String, Part> batch) {
+        List<Part> toSave = new ArrayList<>(batch.size());
+        List<Part> toInsert = new ArrayList<>();
+
+        Map<String, Part> existingById = new HashMap<>();
+        for (Part existing : partRepository.findByMarketplaceAndExternalIdIn(MARKETPLACE, batch.keySet())) {
+            existingById.put(existing.getExternalId(), existing);
+        }
+
+        batch.forEach((externalId, parsed) -> {
+            Part existing = existingById.get(externalId);
+            if (existing != null) {
+                copyParsedFields(parsed, existing);
+                toSave.add(existing);
+                run.updated++;
+            } else if (parsed.getPartType() != null) {
+                toInsert.add(parsed);
+            } else {
+                // Not stored and its list page wasn't archived, so the category is unknown
+                run.unknownCategory++;
+            }
+        });
+
+        partRepository.saveAll(toSave);
+
+        // Joins the surrounding transaction
+        PartBulkInsertRepository.BulkInsertResult result = bulkInsertRepository.insertIgnoringDuplicates(toInsert);
+        run.inserted += result.inserted().size();
+        run.duplicates += result.duplicates();
+        return result.inserted();
+    }
+
+    // Everything the parser derives from the page; identity, part type, status and timestamps stay as they are
+    private static void copyParsedFields(Part parsed, Part existing) {
+        existing.setTitle(parsed.getTitle());
+        existing.setDescription(parsed.getDescription());
+        existing.setPrice(parsed.getPrice());
+        existing.setLocation(parsed.getLocation());
+        existing.setSellerName(parsed.getSellerName());
+        existing.setPhone(parsed.getPhone());
+        existing.setViewCount(parsed.getViewCount());
+        existing.setIsPromoted(parsed.getIsPromoted());
+        existing.setContentFingerprint(parsed.getContentFingerprint());
+    }
+
+    /**
+     * State and counters of one reparse
+     */
+    private static final class Run {
+        // Least recently used listings are forgotten first
+        final Map<String, Part.PartType> categories = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Part.PartType> eldest) {
+                return size() > MAX_REMEMBERED_CATEGORIES;
+            }
+        };
+        final Map<String, Part> batch = new LinkedHashMap<>();
+        long pagesRead;
+        long listPages;
+        long listingsParsed;
+        long unparseable;
+        long updated;
+        long inserted;
+        long duplicates;
+        long unknownCategory;
+        long failed;
+        String error;
+
+        Map<String, Object> toMap(long durationMs) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("finishedAt", LocalDateTime.now());
+            stats.put("durationMs", durationMs);
+            stats.put("pagesRead", pagesRead);
+            stats.put("listPages", listPages);
+            stats.put("listingsParsed", listingsParsed);
+            stats.put("unparseable", unparseable);
+            stats.put("updated", updated);
+            stats.put("inserted", inserted);
+            stats.put("duplicates", duplicates);
+            stats.put("unknownCategory", unknownCategory);
+            stats.put("failed", failed);
+            stats.put("error", error);
+            return stats;
+        }
+    }
+}
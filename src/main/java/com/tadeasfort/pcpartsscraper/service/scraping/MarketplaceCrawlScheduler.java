@@ -0,0 +1,134 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Registry of every {@link MarketplaceService} bean and the concurrency budget
+ * of each marketplace.
+ * <p>
+ * All category jobs share one Quartz thread pool, so every marketplace may run
+ * at most {@code app.scraping.<marketplace>.max-concurrent-categories}
+ * categories at once (default 5). A slow marketplace can use up its own slots
+ * but never the threads another marketplace needs. Request rates are budgeted
+ * separately for every host by {@link HostRateLimiter}, so each added
+ * marketplace brings its own request budget and total throughput grows with the
+ * number of hosts.
+ * <p>
+ * Like the request rates, the category limits are shared by all nodes of a
+ * cluster: each node runs at most its share of them, and always at least one.
+ */
+@Component
+@Slf4j
+public class MarketplaceCrawlScheduler {
+
+    private static final int DEFAULT_MAX_CONCURRENT_CATEGORIES = 5;
+    private static final int DEFAULT_INTERVAL_HOURS = 3;
+
+    private final Map<String, MarketplaceService> marketplaces = new LinkedHashMap<>();
+    private final Map<String, Semaphore> slots = new ConcurrentHashMap<>();
+    private final Map<String, Integer> limits = new ConcurrentHashMap<>();
+    private final Environment environment;
+
+    // Fraction of the category limits this node may use, below 1 when split across cluster nodes
+    private volatile double share = 1.0;
+
+    public MarketplaceCrawlScheduler(List<MarketplaceService> marketplaceServices, Environment environment) {
+        this.environment = environment;
+        for (MarketplaceService marketplace : marketplaceServices) {
+            String name = marketplace.getMarketplaceName();
+            marketplaces.put(name, marketplace);
+            int limit = Math.max(1, getMaxConcurrentCategories(name));
+            limits.put(name, limit);
+            slots.put(name, new Semaphore(limit));
+        }
+        log.info("Discovered marketplaces: {}", marketplaces.keySet());
+    }
+
+    public Collection<MarketplaceService> getMarketplaces() {
+        return marketplaces.values();
+    }
+
+    public Optional<MarketplaceService> find(String marketplace) {
+        return Optional.ofNullable(marketplaces.get(marketplace));
+    }
+
+    public int getMaxConcurrentCategories(String marketplace) {
+        return environment.getProperty("app.scraping." + marketplace + ".max-concurrent-categories", Integer.class,
+                DEFAULT_MAX_CONCURRENT_CATEGORIES);
+    }
+
+    public int getIntervalHours(String marketplace) {
+        return environment.getProperty("app.scraping." + marketplace + ".interval-hours", Integer.class,
+                DEFAULT_INTERVAL_HOURS);
+    }
+
+    /**
+     * Set the fraction of every marketplace's category limit this node may use
+     */
+    public void setShare(double share) {
+        this.share = share;
+    }
+
+    /**
+     * Take one of the marketplace's category slots without waiting
+     *
+     * @return false if the marketplace is already crawling as many categories as it may
+     */
+    public boolean tryStart(String marketplace) {
+        Semaphore semaphore = slots.get(marketplace);
+        if (semaphore == null) {
+            return true;
+        }
+        if (!semaphore.tryAcquire()) {
+            return false;
+        }
+        if (limits.get(marketplace) - semaphore.availablePermits() > allowedCategories(marketplace)) {
+            semaphore.release();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Give back a slot taken by {@link #tryStart}
+     */
+    public void finish(String marketplace) {
+        Semaphore semaphore = slots.get(marketplace);
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * Get the number of running categories of every marketplace
+     *
+     * @return running and maximum category crawls per marketplace
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        marketplaces.forEach((name, marketplace) -> {
+            int limit = limits.get(name);
+            stats.put(name, Map.of(
+                    "enabled", marketplace.isScrapingEnabled(),
+                    "categories", marketplace.getCategories().size(),
+                    "runningCategories", limit - slots.get(name).availablePermits(),
+                    "maxConcurrentCategories", allowedCategories(name)));
+        });
+        return stats;
+    }
+
+    // This node's part of the marketplace's category limit
+    private int allowedCategories(String marketplace) {
+        return Math.max(1, (int) (limits.get(marketplace) * share));
+    }
+}
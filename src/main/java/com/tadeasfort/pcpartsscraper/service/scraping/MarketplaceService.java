@@ -2,6 +2,8 @@ package com.tadeasfort.pcpartsscraper.service.scraping;
 
 import com.tadeasfort.pcpartsscraper.model.Part;
 
+import java.util.Map;
+
 /**
  * Interface for marketplace scraping services
  */
@@ -12,8 +14,9 @@ public interface MarketplaceService {
      * 
      * @param partType     The type of part to scrape
      * @param categoryPath The marketplace-specific category path
+     * @return number of new listings stored, or -1 if the category was not crawled or the crawl failed
      */
-    void scrapeCategory(Part.PartType partType, String categoryPath);
+    int scrapeCategory(Part.PartType partType, String categoryPath);
 
     /**
      * Scrape all categories from the marketplace
@@ -27,6 +30,13 @@ public interface MarketplaceService {
      */
     String getMarketplaceName();
 
+    /**
+     * Get the categories the scheduler crawls on this marketplace
+     * 
+     * @return marketplace-specific category path for each part type
+     */
+    Map<Part.PartType, String> getCategories();
+
     /**
      * Check if scraping is enabled for this marketplace
      * 
@@ -0,0 +1,290 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only on-disk archive of every page the scrapers fetched.
+ * <p>
+ * Pages are appended to segment files, one gzip member per page, so a segment
+ * can be read back as a single stream or entered at any record offset. Each
+ * segment has a text index next to it (offset, length, fetch time, URL), and a
+ * new segment is started once the current one reaches the configured size.
+ * The archive lets the parser be re-run over old pages without crawling again.
+ */
+@Component
+@Slf4j
+public class PageArchive {
+
+    private static final String SEGMENT_SUFFIX = ".pages.gz";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int RECORD_VERSION = 1;
+
+    /**
+     * A page as it was stored in the archive
+     */
+    public record ArchivedPage(String url, Instant fetchedAt, int status, Charset charset, byte[] body) {
+
+        /**
+         * The page in the form the parsers take it from {@link PageFetcher}
+         */
+        public PageFetcher.FetchResult toFetchResult() {
+            return new PageFetcher.FetchResult(url, status, body, charset, false, 0);
+        }
+    }
+
+    @Value("${app.scraping.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.scraping.archive.directory:data/page-archive}")
+    private Path directory;
+
+    @Value("${app.scraping.archive.max-segment-mb:64}")
+    private int maxSegmentMb;
+
+    private OutputStream segment;
+    private BufferedWriter index;
+    private Path segmentPath;
+    private long segmentSize;
+    private long archivedPages;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Append a fetched page. 304 responses carry no body and are skipped.
+     * Failures are logged and never break the fetch that produced the page.
+     */
+    public void append(PageFetcher.FetchResult page) {
+        if (!enabled || page.notModified()) {
+            return;
+        }
+
+        try {
+            Instant fetchedAt = Instant.now();
+            byte[] record = encode(page, fetchedAt);
+            synchronized (this) {
+                if (segment == null || segmentSize >= (long) maxSegmentMb * 1024 * 1024) {
+                    rotate();
+                }
+                long offset = segmentSize;
+                segment.write(record);
+                segment.flush();
+                segmentSize += record.length;
+
+                index.write(offset + "\t" + record.length + "\t" + fetchedAt.toEpochMilli() + "\t" + page.url());
+                index.newLine();
+                index.flush();
+                archivedPages++;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to archive page {}: {}", page.url(), e.getMessage());
+        }
+    }
+
+    /**
+     * Stream every archived page to the consumer, oldest segment first.
+     * A record cut short by a crash ends its segment and is skipped.
+     *
+     * @return number of pages read
+     */
+    public long scan(Consumer<ArchivedPage> consumer) throws IOException {
+        long pages = 0;
+        for (Path path : segments()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16)), 1 << 16))) {
+                while (true) {
+                    ArchivedPage page;
+                    try {
+                        page = decode(in);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    consumer.accept(page);
+                    pages++;
+                }
+            } catch (EOFException e) {
+                // Empty segment, or the last member was truncated
+                log.debug("Reached end of segment {} early", path.getFileName());
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Find the most recently archived copy of a URL using the segment indexes
+     */
+    public Optional<ArchivedPage> latest(String url) throws IOException {
+        List<Path> segments = segments();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Path segmentFile = segments.get(i);
+            Path indexFile = indexOf(segmentFile);
+            if (!Files.exists(indexFile)) {
+                continue;
+            }
+
+            String[] match = null;
+            try (Stream<String> lines = Files.lines(indexFile, StandardCharsets.UTF_8)) {
+                for (String line : (Iterable<String>) lines::iterator) {
+                    String[] fields = line.split("\t", 4);
+                    if (fields.length == 4 && fields[3].equals(url)) {
+                        match = fields;
+                    }
+                }
+            }
+            if (match != null) {
+                return Optional.of(read(segmentFile, Long.parseLong(match[0]), Integer.parseInt(match[1])));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Get archive statistics
+     *
+     * @return segment count, total size and pages written since startup
+     */
+    public Map<String, Object> getStats() throws IOException {
+        List<Path> segments = segments();
+        long totalBytes = 0;
+        for (Path path : segments) {
+            totalBytes += Files.size(path);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("directory", directory.toAbsolutePath().toString());
+        stats.put("segments", segments.size());
+        stats.put("sizeInBytes", totalBytes);
+        synchronized (this) {
+            stats.put("currentSegment", segmentPath != null ? segmentPath.getFileName().toString() : null);
+            stats.put("pagesArchivedSinceStartup", archivedPages);
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        closeSegment();
+    }
+
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // Segment names start with a zero-padded timestamp, so name order is write order
+            return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeSegment();
+        Files.createDirectories(directory);
+
+        segmentPath = directory.resolve(String.format("segment-%013d", System.currentTimeMillis()) + SEGMENT_SUFFIX);
+        segment = Files.newOutputStream(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        index = Files.newBufferedWriter(indexOf(segmentPath), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        segmentSize = Files.size(segmentPath);
+
+        log.info("Started page archive segment {}", segmentPath);
+    }
+
+    private void closeSegment() {
+        try {
+            if (segment != null) {
+                segment.close();
+            }
+            if (index != null) {
+                index.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close page archive segment {}: {}", segmentPath, e.getMessage());
+        }
+        segment = null;
+        index = null;
+    }
+
+    private static Path indexOf(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return segmentFile.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    private static ArchivedPage read(Path segmentFile, long offset, int length) throws IOException {
+        byte[] record = new byte[length];
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile.toFile(), "r")) {
+            file.seek(offset);
+            file.readFully(record);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(record))) {
+            return decode(new DataInputStream(in));
+        }
+    }
+
+    // Record layout: version, URL, fetch time, status, charset ("" if unknown), body length, body
+    private static byte[] encode(PageFetcher.FetchResult page, Instant fetchedAt) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(page.body().length / 4 + 256);
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(buffer))) {
+            out.writeByte(RECORD_VERSION);
+            out.writeUTF(page.url());
+            out.writeLong(fetchedAt.toEpochMilli());
+            out.writeShort(page.status());
+            out.writeUTF(page.charset() != null ? page.charset().name() : "");
+            out.writeInt(page.body().length);
+            out.write(page.body());
+        }
+        return buffer.toByteArray();
+    }
+
+    private static ArchivedPage decode(DataInputStream in) throws IOException {
+        int version = in.read();
+        if (version < 0) {
+            throw new EOFException();
+        }
+        if (version != RECORD_VERSION) {
+            throw new IOException("Unsupported page archive record version " + version);
+        }
+
+        String url = in.readUTF();
+        Instant fetchedAt = Instant.ofEpochMilli(in.readLong());
+        int status = in.readShort();
+        String charsetName = in.readUTF();
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+
+        Charset charset = charsetName.isEmpty() ? null : Charset.forName(charsetName);
+        return new ArchivedPage(url, fetchedAt, status, charset, body);
+    }
+}
@@ -0,0 +1,272 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.jfr.PageFetchEvent;
+import com.tadeasfort.pcpartsscraper.service.TorProxyService;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Shared HTTP fetch layer for the scrapers.
+ * <p>
+ * Direct requests go through a single pooled {@link HttpClient}, so
+ * connections and TLS sessions to the marketplace are reused. Bodies are
+ * requested compressed, and pages fetched before are requested conditionally
+ * (ETag / Last-Modified) so an unchanged page comes back as a bodiless 304.
+ * The JDK client can't talk to SOCKS proxies, so when Tor is enabled the
+ * request is made through Jsoup instead, with the same headers.
+ * Every page that comes back with a body is kept in the {@link PageArchive}.
+ * Each request is recorded as a {@link PageFetchEvent} when Flight Recorder runs.
+ */
+@Component
+@Slf4j
+public class PageFetcher {
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
+    private static final int CONNECT_TIMEOUT = 10000;
+    private static final int READ_TIMEOUT = 10000;
+
+    private final TorProxyService torProxyService;
+    private final HostRateLimiter rateLimiter;
+    private final PageArchive pageArchive;
+    private final HttpClient httpClient;
+    private final Map<String, Validators> validators;
+
+    @Value("${app.scraping.http.conditional-get:true}")
+    private boolean conditionalGet;
+
+    public PageFetcher(TorProxyService torProxyService, HostRateLimiter rateLimiter, PageArchive pageArchive,
+            @Value("${app.scraping.http.validator-cache-size:50000}") int validatorCacheSize) {
+        this.torProxyService = torProxyService;
+        this.rateLimiter = rateLimiter;
+        this.pageArchive = pageArchive;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(CONNECT_TIMEOUT))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.validators = Collections.synchronizedMap(new LinkedHashMap<String, Validators>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Validators> eldest) {
+                return size() > validatorCacheSize;
+            }
+        });
+    }
+
+    /**
+     * Result of a single GET
+     *
+     * @param body        decompressed body, empty for 304
+     * @param charset     charset from the Content-Type header, null if not sent
+     * @param notModified true if the server answered 304 to a conditional GET
+     */
+    public record FetchResult(String url, int status, byte[] body, Charset charset, boolean notModified,
+            long latencyNanos) {
+
+        public Document parse() throws IOException {
+            return Jsoup.parse(new ByteArrayInputStream(body), charset != null ? charset.name() : null, url);
+        }
+    }
+
+    /**
+     * Fetch a page, waiting for the host's rate limiter first. The outcome is
+     * reported back to the limiter so it can adapt the host's rate.
+     *
+     * @param url page URL
+     * @return response, never a non-2xx status other than 304
+     * @throws IOException on connection errors; error statuses throw {@link HttpStatusException}
+     */
+    public FetchResult fetch(String url) throws IOException, InterruptedException {
+        Proxy proxy = torProxyService.getTorProxy();
+        String route = proxy != null ? proxy.address().toString() : HostRateLimiter.DIRECT;
+
+        try (HostRateLimiter.Permit permit = rateLimiter.acquire(url, route)) {
+            Validators cached = conditionalGet ? validators.get(url) : null;
+
+            PageFetchEvent event = new PageFetchEvent();
+            event.begin();
+            long start = System.nanoTime();
+            FetchResult result;
+            try {
+                result = proxy != null
+                        ? fetchViaProxy(url, proxy, cached, start)
+                        : fetchDirect(url, cached, start);
+            } catch (IOException e) {
+                permit.onFailure(e);
+                commit(event, url, proxy != null, null, e);
+                throw e;
+            }
+            commit(event, url, proxy != null, result, null);
+            permit.onResponse(result.status(), result.latencyNanos());
+
+            if (result.notModified()) {
+                log.debug("Not modified since last fetch: {}", url);
+            } else {
+                pageArchive.append(result);
+            }
+            return result;
+        }
+    }
+
+    private static void commit(PageFetchEvent event, String url, boolean viaProxy, FetchResult result,
+            IOException error) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.url = url;
+        event.viaProxy = viaProxy;
+        if (result != null) {
+            event.status = result.status();
+            event.bytes = result.body().length;
+            event.notModified = result.notModified();
+        } else {
+            event.status = error instanceof HttpStatusException statusError ? statusError.getStatusCode() : 0;
+            event.error = error.getMessage();
+        }
+        event.commit();
+    }
+
+    private FetchResult fetchDirect(String url, Validators cached, long start)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(READ_TIMEOUT))
+                .header("User-Agent", USER_AGENT)
+                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+                .header("Accept-Language", "cs,en;q=0.8")
+                .header("Accept-Encoding", "gzip, deflate")
+                .GET();
+        if (cached != null) {
+            cached.apply(request::header);
+        }
+
+        HttpResponse<InputStream> response = httpClient.send(request.build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+
+        if (status == 304) {
+            response.body().close();
+            return new FetchResult(url, status, new byte[0], null, true, System.nanoTime() - start);
+        }
+
+        byte[] body;
+        try (InputStream in = decode(response.body(),
+                response.headers().firstValue("Content-Encoding").orElse(""))) {
+            body = in.readAllBytes();
+        }
+
+        if (status < 200 || status >= 300) {
+            throw new HttpStatusException("HTTP error fetching URL", status, url);
+        }
+
+        remember(url, response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null));
+        return new FetchResult(url, status, body,
+                charsetOf(response.headers().firstValue("Content-Type").orElse(null)), false,
+                System.nanoTime() - start);
+    }
+
+    private FetchResult fetchViaProxy(String url, Proxy proxy, Validators cached, long start) throws IOException {
+        Connection connection = Jsoup.connect(url)
+                .userAgent(USER_AGENT)
+                .timeout(READ_TIMEOUT)
+                .followRedirects(true)
+                .ignoreHttpErrors(true)
+                .proxy(proxy);
+        if (cached != null) {
+            cached.apply(connection::header);
+        }
+        log.debug("Using Tor proxy for request to: {}", url);
+
+        Connection.Response response = connection.execute();
+        int status = response.statusCode();
+
+        if (status == 304) {
+            return new FetchResult(url, status, new byte[0], null, true, System.nanoTime() - start);
+        }
+        if (status < 200 || status >= 300) {
+            throw new HttpStatusException("HTTP error fetching URL", status, url);
+        }
+
+        byte[] body = response.bodyAsBytes();
+        remember(url, response.header("ETag"), response.header("Last-Modified"));
+        return new FetchResult(url, status, body, charsetOf(response.contentType()), false,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Forget the validators of a URL, so its next fetch is unconditional.
+     * Callers invalidate pages whose content didn't end up stored - a failed
+     * parse or save, or an aborted run - otherwise the next crawl would get a
+     * 304 for them and skip them for good.
+     */
+    public void invalidate(String url) {
+        validators.remove(url);
+    }
+
+    private void remember(String url, String etag, String lastModified) {
+        if (conditionalGet && (etag != null || lastModified != null)) {
+            validators.put(url, new Validators(etag, lastModified));
+        }
+    }
+
+    private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        return switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(body);
+            case "deflate" -> new InflaterInputStream(body);
+            default -> body;
+        };
+    }
+
+    static Charset charsetOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int index = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (index < 0) {
+            return null;
+        }
+        String name = contentType.substring(index + 8).split(";")[0].trim().replace("\"", "");
+        try {
+            return Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Cache validators from the last successful response for a URL
+     */
+    private record Validators(String etag, String lastModified) {
+
+        void apply(BiConsumer<String, String> header) {
+            if (etag != null) {
+                header.accept("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                header.accept("If-Modified-Since", lastModified);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.jfr.PartIngestEvent;
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.repository.PartBulkInsertRepository;
+import com.tadeasfort.pcpartsscraper.repository.PartContentUpdateRepository;
+import com.tadeasfort.pcpartsscraper.repository.PartRepository;
+import com.tadeasfort.pcpartsscraper.service.PriceHistoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Stores a batch of scraped parts of one marketplace in a single transaction:
+ * <ol>
+ * <li>one query loads the stored content fingerprints of the batch's listings,</li>
+ * <li>listings whose content changed get one batched UPDATE,</li>
+ * <li>the remaining ones one {@code INSERT ... ON CONFLICT DO NOTHING RETURNING},
+ * so a listing inserted concurrently by another job is counted as a duplicate
+ * instead of failing the batch.</li>
+ * </ol>
+ * The seen listing filter and the price history are only told about the
+ * changes once the transaction has committed.
+ */
+@Service
+@Slf4j
+public class PartIngestService {
+
+    private final PartRepository partRepository;
+    private final PartContentUpdateRepository contentUpdateRepository;
+    private final PartBulkInsertRepository bulkInsertRepository;
+    private final SeenListingFilter seenListingFilter;
+    private final PriceHistoryService priceHistoryService;
+    private final TransactionTemplate transaction;
+    private final ScrapeMetrics metrics;
+
+    public PartIngestService(PartRepository partRepository, PartContentUpdateRepository contentUpdateRepository,
+            PartBulkInsertRepository bulkInsertRepository, SeenListingFilter seenListingFilter,
+            PriceHistoryService priceHistoryService, PlatformTransactionManager transactionManager,
+            ScrapeMetrics metrics) {
+        this.partRepository = partRepository;
+        this.contentUpdateRepository = contentUpdateRepository;
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.seenListingFilter = seenListingFilter;
+        this.priceHistoryService = priceHistoryService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Outcome of one ingest call
+     *
+     * @param inserted             new listings stored
+     * @param updated              stored listings whose content changed
+     * @param unchanged            stored listings with the same content
+     * @param duplicates           listings another writer stored first
+     * @param intraBatchDuplicates listings repeated within the batch
+     */
+    public record IngestResult(int inserted, int updated, int unchanged, int duplicates, int intraBatchDuplicates) {
+
+        static final IngestResult EMPTY = new IngestResult(0, 0, 0, 0, 0);
+
+        public int getTotalDuplicates() {
+            return unchanged + duplicates + intraBatchDuplicates;
+        }
+    }
+
+    /**
+     * Ingest result together with which listings were inserted and updated, so
+     * that a batch coalesced from several submissions can be split up again
+     */
+    record Outcome(IngestResult result, Set<String> insertedExternalIds, Set<String> updatedExternalIds) {
+    }
+
+    /**
+     * Insert new listings and update changed ones
+     *
+     * @param marketplace marketplace all the parts belong to
+     */
+    public IngestResult ingest(String marketplace, List<Part> parts) {
+        return ingestDetailed(marketplace, parts).result();
+    }
+
+    Outcome ingestDetailed(String marketplace, List<Part> parts) {
+        if (parts.isEmpty()) {
+            return new Outcome(IngestResult.EMPTY, Set.of(), Set.of());
+        }
+
+        // Remove duplicates within the batch (same page), the last copy wins
+        Map<String, Part> uniqueParts = new LinkedHashMap<>();
+        for (Part part : parts) {
+            uniqueParts.put(part.getExternalId(), part);
+        }
+        int intraBatchDuplicates = parts.size() - uniqueParts.size();
+
+        PartIngestEvent event = new PartIngestEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Changes changes = transaction.execute(status -> write(marketplace, uniqueParts));
+        metrics.recordSave(marketplace, System.nanoTime() - start, uniqueParts.size());
+        event.end();
+        if (event.shouldCommit()) {
+            event.marketplace = marketplace;
+            event.rows = uniqueParts.size();
+            event.inserted = changes.inserted.size();
+            event.updated = changes.updated;
+            event.unchanged = changes.unchanged;
+            event.commit();
+        }
+
+        seenListingFilter.recordAll(changes.inserted);
+        priceHistoryService.recordPrices(changes.inserted);
+        priceHistoryService.recordPriceChanges(marketplace, changes.priceChanged);
+
+        IngestResult result = new IngestResult(changes.inserted.size(), changes.updated, changes.unchanged,
+                changes.attemptedInserts - changes.inserted.size(), intraBatchDuplicates);
+        if (result.inserted() > 0 || result.updated() > 0 || result.getTotalDuplicates() > 0) {
+            log.debug("Saved {} new parts, updated {}, skipped {} duplicates (unchanged: {}, concurrent: {}, "
+                    + "intra-batch: {})", result.inserted(), result.updated(), result.getTotalDuplicates(),
+                    result.unchanged(), result.duplicates(), result.intraBatchDuplicates());
+        }
+        return new Outcome(result,
+                changes.inserted.stream().map(Part::getExternalId).collect(Collectors.toSet()),
+                changes.updatedExternalIds);
+    }
+
+    private Changes write(String marketplace, Map<String, Part> uniqueParts) {
+        Map<String, Long> storedFingerprints = new HashMap<>();
+        Map<String, BigDecimal> storedPrices = new HashMap<>();
+        Map<String, LocalDateTime> storedUpdatedAt = new HashMap<>();
+        for (Object[] row : partRepository.findContentFingerprints(marketplace, uniqueParts.keySet())) {
+            storedFingerprints.put((String) row[0], (Long) row[1]);
+            storedPrices.put((String) row[0], (BigDecimal) row[2]);
+            storedUpdatedAt.put((String) row[0], (LocalDateTime) row[3]);
+        }
+
+        Changes changes = new Changes();
+        List<Part> changedParts = new ArrayList<>();
+        List<Part> unseenParts = new ArrayList<>();
+        for (Part part : uniqueParts.values()) {
+            if (!storedFingerprints.containsKey(part.getExternalId())) {
+                unseenParts.add(part);
+            } else if (!Objects.equals(storedFingerprints.get(part.getExternalId()),
+                    part.getContentFingerprint())) {
+                changedParts.add(part);
+                BigDecimal storedPrice = storedPrices.get(part.getExternalId());
+                if (PriceHistoryService.priceChanged(storedPrice, part.getPrice())) {
+                    changes.priceChanged.add(new PriceHistoryService.PriceChange(part, storedPrice,
+                            storedUpdatedAt.get(part.getExternalId())));
+                }
+            } else {
+                changes.unchanged++;
+            }
+        }
+
+        changes.updated = contentUpdateRepository.updateContent(changedParts);
+        changedParts.forEach(part -> changes.updatedExternalIds.add(part.getExternalId()));
+
+        // Same timestamps Part's @PrePersist would set, which plain JDBC inserts bypass
+        LocalDateTime now = LocalDateTime.now();
+        for (Part part : unseenParts) {
+            part.setScrapedAt(now);
+            part.setUpdatedAt(now);
+        }
+        changes.attemptedInserts = unseenParts.size();
+        changes.inserted = bulkInsertRepository.insertReturning(unseenParts);
+        return changes;
+    }
+
+    private static final class Changes {
+        List<Part> inserted = List.of();
+        final List<PriceHistoryService.PriceChange> priceChanged = new ArrayList<>();
+        final Set<String> updatedExternalIds = new HashSet<>();
+        int attemptedInserts;
+        int updated;
+        int unchanged;
+    }
+}
@@ -0,0 +1,268 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind queue between the category jobs and {@link PartIngestService}.
+ * <p>
+ * Jobs hand off each page of parsed parts and carry on crawling. A few writer
+ * threads coalesce the pages of all jobs into large batches, flushed once they
+ * reach the batch size or the oldest page has waited the maximum delay, so the
+ * database sees a few big transactions instead of one small one per job and
+ * page. The queue holds at most {@code capacity} parts; when it is full,
+ * submitting blocks until the writers catch up. On shutdown new submissions are
+ * refused and the writers drain what is left.
+ * <p>
+ * Publishes {@code scraping.ingest.queue.depth} (parts waiting),
+ * {@code scraping.ingest.batch.size} (parts per flush) and
+ * {@code scraping.ingest.flush.latency} (from submitting the oldest page of a
+ * flush to its commit).
+ */
+@Component
+@Slf4j
+public class PartWriteBehindQueue {
+
+    private final PartIngestService ingestService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.scraping.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.scraping.write-behind.capacity:5000}")
+    private int capacity;
+
+    @Value("${app.scraping.write-behind.writers:2}")
+    private int writers;
+
+    @Value("${app.scraping.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.scraping.write-behind.max-delay-ms:500}")
+    private long maxDelayMs;
+
+    @Value("${app.scraping.write-behind.shutdown-timeout-seconds:30}")
+    private long shutdownTimeoutSeconds;
+
+    private final BlockingQueue<Submission> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger queuedParts = new AtomicInteger();
+    private final List<Thread> writerThreads = new ArrayList<>();
+    private Semaphore space;
+    private volatile boolean accepting;
+
+    private DistributionSummary batchSizeSummary;
+    private Timer flushLatency;
+
+    public PartWriteBehindQueue(PartIngestService ingestService, MeterRegistry meterRegistry) {
+        this.ingestService = ingestService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        space = new Semaphore(Math.max(1, capacity));
+        Gauge.builder("scraping.ingest.queue.depth", queuedParts, AtomicInteger::get)
+                .description("Parsed parts waiting to be written")
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("scraping.ingest.batch.size")
+                .description("Parts written per flush")
+                .register(meterRegistry);
+        flushLatency = Timer.builder("scraping.ingest.flush.latency")
+                .description("Time from submitting the oldest page of a flush to its commit")
+                .register(meterRegistry);
+
+        accepting = true;
+        for (int i = 0; i < Math.max(1, writers); i++) {
+            writerThreads.add(Thread.ofPlatform().name("ingest-writer-" + i).start(this::runWriter));
+        }
+        log.info("Write-behind ingest started: {} writers, batches of {} parts or {} ms, capacity {} parts",
+                writerThreads.size(), batchSize, maxDelayMs, capacity);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+
+        accepting = false;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(shutdownTimeoutSeconds);
+        for (Thread writer : writerThreads) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0 || !writer.join(Duration.ofMillis(remainingMs))) {
+                writer.interrupt();
+            }
+        }
+
+        if (!queue.isEmpty()) {
+            log.warn("Write-behind ingest stopped with {} parts not written", queuedParts.get());
+            Submission left;
+            while ((left = queue.poll()) != null) {
+                left.result.completeExceptionally(
+                        new IllegalStateException("Shut down before the parts were written"));
+            }
+        }
+    }
+
+    /**
+     * Queue a page of parts for writing. Blocks while the queue is full.
+     * Without write-behind the parts are written right away.
+     *
+     * @param marketplace marketplace all the parts belong to
+     * @return result for these parts, completed once they are committed
+     */
+    public CompletableFuture<PartIngestService.IngestResult> submit(String marketplace, List<Part> parts)
+            throws InterruptedException {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(ingestService.ingest(marketplace, parts));
+        }
+        if (!accepting) {
+            throw new IllegalStateException("Write-behind ingest is shutting down");
+        }
+        if (parts.isEmpty()) {
+            return CompletableFuture.completedFuture(PartIngestService.IngestResult.EMPTY);
+        }
+
+        // A page bigger than the whole queue takes all of it rather than waiting forever
+        int permits = Math.min(parts.size(), Math.max(1, capacity));
+        while (!space.tryAcquire(permits, 100, TimeUnit.MILLISECONDS)) {
+            // Writers that stopped will never make room
+            if (!accepting) {
+                throw new IllegalStateException("Write-behind ingest is shutting down");
+            }
+        }
+
+        Submission submission = new Submission(marketplace, List.copyOf(parts), permits, System.nanoTime(),
+                new CompletableFuture<>());
+        queuedParts.addAndGet(parts.size());
+        queue.add(submission);
+
+        // Shutdown may have begun while waiting for space, after the writers and the final drain looked at the
+        // queue. Take the submission back - if it's gone, a writer or the drain already completes it.
+        if (!accepting && queue.remove(submission)) {
+            queuedParts.addAndGet(-parts.size());
+            space.release(permits);
+            throw new IllegalStateException("Write-behind ingest is shutting down");
+        }
+        return submission.result;
+    }
+
+    /**
+     * Get the number of parts waiting to be written
+     */
+    public int getQueueDepth() {
+        return queuedParts.get();
+    }
+
+    private void runWriter() {
+        while (accepting || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<Submission> batch = new ArrayList<>();
+                batch.add(first);
+                int parts = first.parts.size();
+                long deadline = first.submittedNanos + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (parts < batchSize) {
+                    // Once shutting down, flush whatever is there without waiting for more
+                    long waitNanos = accepting ? deadline - System.nanoTime() : 0;
+                    Submission next = waitNanos > 0 ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    parts += next.parts.size();
+                }
+
+                flush(batch, parts);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<Submission> batch, int parts) {
+        Map<String, List<Submission>> byMarketplace = new LinkedHashMap<>();
+        for (Submission submission : batch) {
+            byMarketplace.computeIfAbsent(submission.marketplace, key -> new ArrayList<>()).add(submission);
+        }
+
+        try {
+            byMarketplace.forEach(this::write);
+        } finally {
+            long oldest = batch.stream().mapToLong(Submission::submittedNanos).min().orElse(System.nanoTime());
+            flushLatency.record(System.nanoTime() - oldest, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(parts);
+            queuedParts.addAndGet(-parts);
+            space.release(batch.stream().mapToInt(Submission::permits).sum());
+        }
+    }
+
+    private void write(String marketplace, List<Submission> submissions) {
+        List<Part> parts = new ArrayList<>();
+        submissions.forEach(submission -> parts.addAll(submission.parts));
+
+        try {
+            PartIngestService.Outcome outcome = ingestService.ingestDetailed(marketplace, parts);
+            // Each inserted or updated listing is credited to the first submission carrying it
+            Set<String> inserted = new HashSet<>(outcome.insertedExternalIds());
+            Set<String> updated = new HashSet<>(outcome.updatedExternalIds());
+            for (Submission submission : submissions) {
+                submission.result.complete(share(submission.parts, inserted, updated));
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to write batch of {} {} parts: {}", parts.size(), marketplace, e.getMessage(), e);
+            submissions.forEach(submission -> submission.result.completeExceptionally(e));
+        }
+    }
+
+    // The part of a coalesced batch's result that belongs to one submission; credited IDs are taken out
+    // of the sets so later submissions with the same listing count it as a duplicate
+    private static PartIngestService.IngestResult share(List<Part> parts, Set<String> insertedIds,
+            Set<String> updatedIds) {
+        int inserted = 0;
+        int updated = 0;
+        for (Part part : parts) {
+            if (insertedIds.remove(part.getExternalId())) {
+                inserted++;
+            } else if (updatedIds.remove(part.getExternalId())) {
+                updated++;
+            }
+        }
+        return new PartIngestService.IngestResult(inserted, updated, 0, parts.size() - inserted - updated, 0);
+    }
+
+    private record Submission(String marketplace, List<Part> parts, int permits, long submittedNanos,
+            CompletableFuture<PartIngestService.IngestResult> result) {
+    }
+}
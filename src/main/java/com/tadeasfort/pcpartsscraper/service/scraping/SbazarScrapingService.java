@@ -0,0 +1,284 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tadeasfort.pcpartsscraper.model.ListingIdentity;
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.repository.PartRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sbazar.cz marketplace, crawled through the JSON search API its web client
+ * uses. Every search page already carries the full listings, so there is no
+ * detail page to fetch - one request per 20 listings.
+ * <p>
+ * Categories are configured as {@code PART_TYPE:category_id} pairs in
+ * {@code app.scraping.sbazar.categories}. Requests go through the shared
+ * {@link PageFetcher}, so Sbazar gets its own per-host rate budget next to
+ * Bazos.
+ */
+@Service
+@Slf4j
+public class SbazarScrapingService implements MarketplaceService {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_PAGES = 500;
+
+    private final PartRepository partRepository;
+    private final PartWriteBehindQueue writeQueue;
+    private final PageFetcher pageFetcher;
+    private final SeenListingFilter seenListingFilter;
+    private final ObjectMapper objectMapper;
+    private final ScrapeRunService scrapeRunService;
+
+    public SbazarScrapingService(PartRepository partRepository, PartWriteBehindQueue writeQueue,
+            PageFetcher pageFetcher, SeenListingFilter seenListingFilter, ObjectMapper objectMapper,
+            ScrapeRunService scrapeRunService) {
+        this.partRepository = partRepository;
+        this.writeQueue = writeQueue;
+        this.pageFetcher = pageFetcher;
+        this.seenListingFilter = seenListingFilter;
+        this.objectMapper = objectMapper;
+        this.scrapeRunService = scrapeRunService;
+    }
+
+    @Value("${app.scraping.enabled:true}")
+    private boolean globalScrapingEnabled;
+
+    @Value("${app.scraping.sbazar.enabled:false}")
+    private boolean sbazarEnabled;
+
+    @Value("${app.scraping.sbazar.base-url:https://www.sbazar.cz}")
+    private String baseUrl;
+
+    @Value("${app.scraping.sbazar.categories:}")
+    private List<String> categoryConfig;
+
+    @Value("${app.scraping.sbazar.duplicate-stop-threshold:0.8}")
+    private double duplicateStopThreshold;
+
+    private final Map<Part.PartType, String> categories = new EnumMap<>(Part.PartType.class);
+
+    @PostConstruct
+    public void init() {
+        for (String entry : categoryConfig) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                if (!entry.isBlank()) {
+                    log.warn("Ignoring Sbazar category '{}' - expected PART_TYPE:category_id", entry);
+                }
+                continue;
+            }
+            try {
+                categories.put(Part.PartType.valueOf(parts[0].trim()), parts[1].trim());
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring Sbazar category '{}' - unknown part type", entry);
+            }
+        }
+    }
+
+    @Override
+    public String getMarketplaceName() {
+        return "sbazar";
+    }
+
+    @Override
+    public boolean isScrapingEnabled() {
+        return globalScrapingEnabled && sbazarEnabled;
+    }
+
+    @Override
+    public Map<Part.PartType, String> getCategories() {
+        return Collections.unmodifiableMap(categories);
+    }
+
+    @Override
+    public int scrapeCategory(Part.PartType partType, String categoryId) {
+        if (!isScrapingEnabled()) {
+            log.info("Sbazar scraping is disabled, skipping {}", partType);
+            return -1;
+        }
+
+        log.info("Starting to scrape Sbazar category: {} ({})", partType, categoryId);
+        List<CompletableFuture<PartIngestService.IngestResult>> pendingWrites = new ArrayList<>();
+        ScrapeRunTracker tracker = scrapeRunService.start(getMarketplaceName(), partType);
+        ScrapeMetrics.StopReason stopReason = ScrapeMetrics.StopReason.MAX_PAGES;
+        List<String> fetchedUrls = new ArrayList<>();
+        int pages = 0;
+
+        try {
+            for (int page = 0; page < MAX_PAGES; page++) {
+                pages++;
+                String url = buildUrl(categoryId, page);
+                PageFetcher.FetchResult response = fetchPage(url, tracker);
+                if (response.notModified()) {
+                    log.info("Page {} for {} has not changed since the last crawl, stopping", page + 1, partType);
+                    stopReason = ScrapeMetrics.StopReason.NOT_MODIFIED;
+                    break;
+                }
+                fetchedUrls.add(url);
+
+                long parseStart = System.nanoTime();
+                List<Part> listings = parseResults(objectMapper.readTree(response.body()), partType);
+                tracker.recordParse(System.nanoTime() - parseStart, true);
+                tracker.countFetchedListings(listings.size());
+                if (listings.isEmpty()) {
+                    log.info("No more Sbazar listings found on page {}, stopping", page + 1);
+                    stopReason = ScrapeMetrics.StopReason.NO_LISTINGS;
+                    break;
+                }
+
+                Map<String, Part> byId = new LinkedHashMap<>();
+                listings.forEach(part -> byId.put(part.getExternalId(), part));
+                Set<String> knownIds = seenListingFilter.findKnown(getMarketplaceName(), byId.keySet(),
+                        ids -> partRepository.findExistingExternalIds(getMarketplaceName(), ids));
+                List<Part> newParts = byId.values().stream()
+                        .filter(part -> !knownIds.contains(part.getExternalId()))
+                        .toList();
+
+                if (!newParts.isEmpty()) {
+                    pendingWrites.add(writeQueue.submit(getMarketplaceName(), newParts)
+                            .thenApply(result -> {
+                                tracker.countListings(result);
+                                return result;
+                            }));
+                }
+
+                double knownRatio = (double) knownIds.size() / byId.size();
+                if (knownRatio >= duplicateStopThreshold) {
+                    log.info("Stopping Sbazar scraping for {} after page {} - known listing ratio {} reached threshold",
+                            partType, page + 1, String.format("%.2f", knownRatio));
+                    stopReason = ScrapeMetrics.StopReason.KNOWN_RATIO;
+                    break;
+                }
+                if (listings.size() < PAGE_SIZE) {
+                    stopReason = ScrapeMetrics.StopReason.LAST_PAGE;
+                    break;
+                }
+            }
+
+            int saved = 0;
+            for (CompletableFuture<PartIngestService.IngestResult> write : pendingWrites) {
+                saved += write.join().inserted();
+            }
+            log.info("Completed scraping Sbazar category {}: {} new parts saved", partType, saved);
+            scrapeRunService.finish(tracker, pages, stopReason);
+            return saved;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Sbazar scraping of {} interrupted", partType);
+        } catch (IOException | CompletionException e) {
+            log.error("Error scraping Sbazar category {}: {}", partType, e.getMessage(), e);
+        }
+        // The failed run's pages may not be stored - fetch them in full next time
+        fetchedUrls.forEach(pageFetcher::invalidate);
+        scrapeRunService.finish(tracker, pages, ScrapeMetrics.StopReason.ERROR);
+        return -1;
+    }
+
+    @Override
+    public void scrapeAllCategories() {
+        log.info("Starting full scraping of all Sbazar categories");
+        categories.forEach(this::scrapeCategory);
+        log.info("Completed full scraping of all Sbazar categories");
+    }
+
+    private PageFetcher.FetchResult fetchPage(String url, ScrapeRunTracker tracker)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try {
+            PageFetcher.FetchResult response = pageFetcher.fetch(url);
+            tracker.recordFetch(ScrapeMetrics.PageKind.LIST, response.notModified() ? "not_modified" : "ok",
+                    response.latencyNanos(), response.body().length);
+            return response;
+        } catch (IOException e) {
+            tracker.recordFetch(ScrapeMetrics.PageKind.LIST, "error", System.nanoTime() - start, 0);
+            throw e;
+        }
+    }
+
+    private String buildUrl(String categoryId, int page) {
+        return baseUrl + "/api/v1/items/search?category_id=" + categoryId + "&offset=" + (page * PAGE_SIZE)
+                + "&limit=" + PAGE_SIZE + "&sort=-create_date";
+    }
+
+    /**
+     * Turn the {@code results} of a search response into parts
+     */
+    List<Part> parseResults(JsonNode root, Part.PartType partType) {
+        List<Part> parts = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (JsonNode item : root.path("results")) {
+            String id = item.path("id").asText("");
+            String title = item.path("name").asText("").trim();
+            if (id.isEmpty() || title.isEmpty()) {
+                continue;
+            }
+
+            // Zero or missing price means "by agreement"
+            BigDecimal price = item.path("price").isNumber() && item.path("price").decimalValue().signum() > 0
+                    ? item.path("price").decimalValue()
+                    : null;
+            String seoName = item.path("seo_name").asText("");
+            LocalDateTime created = parseDate(item.path("create_date").asText(null));
+
+            Part part = Part.builder()
+                    .title(truncate(title, 500))
+                    .description(truncate(item.path("description").asText(null), 2000))
+                    .partType(partType)
+                    .price(price)
+                    .currency("CZK")
+                    .marketplace(getMarketplaceName())
+                    .source(getMarketplaceName())
+                    .externalId(truncate(id, 50))
+                    .url(truncate(baseUrl + "/detail/" + id + (seoName.isEmpty() ? "" : "-" + seoName), 1000))
+                    .location(truncate(item.path("locality").path("district").asText(null), 200))
+                    .scrapedAt(created != null ? created : now)
+                    .updatedAt(now)
+                    .active(true)
+                    .build();
+            ListingIdentity.compute(part).applyTo(part);
+            part.setContentFingerprint(ListingFingerprint.of(part));
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    private static LocalDateTime parseDate(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(value);
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
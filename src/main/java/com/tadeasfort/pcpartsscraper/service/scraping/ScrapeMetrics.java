@@ -0,0 +1,136 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the scrape pipeline, tagged by marketplace and category
+ * ({@code category} is the part type). The save meters are the exception and
+ * carry only the marketplace: the write-behind queue coalesces pages of several
+ * categories into one transaction, so a transaction has no single category.
+ * <ul>
+ * <li>{@code scraping.fetch.latency} - list and detail page requests, by {@code page} and {@code outcome}</li>
+ * <li>{@code scraping.fetch.bytes} - downloaded body sizes</li>
+ * <li>{@code scraping.parse.time} - parsing one listing or search response, by {@code outcome}</li>
+ * <li>{@code scraping.save.time} and {@code scraping.save.batch.size} - ingest transactions per marketplace</li>
+ * <li>{@code scraping.listings} - listings by {@code result}: inserted, updated, duplicate or failed</li>
+ * <li>{@code scraping.run.pages} - list pages walked per category run</li>
+ * <li>{@code scraping.run.stops} - category runs by the {@code reason} they stopped</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class ScrapeMetrics {
+
+    /** Kind of page a request fetched */
+    public enum PageKind {
+        LIST, DETAIL;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    /** Why a category run stopped walking list pages */
+    public enum StopReason {
+        /** The last list page had no link to a next one */
+        LAST_PAGE,
+        /** A list page came back empty */
+        NO_LISTINGS,
+        /** A list page answered 304 */
+        NOT_MODIFIED,
+        /** Enough listings of a page were already stored */
+        KNOWN_RATIO,
+        /** The page reached the previous run's newest listing */
+        WATERMARK,
+        /** The page limit was hit */
+        MAX_PAGES,
+        /** The run failed */
+        ERROR;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    public void recordFetch(String marketplace, Part.PartType category, PageKind page, String outcome,
+            long nanos, int bytes) {
+        Timer.builder("scraping.fetch.latency")
+                .description("Time to fetch a list or detail page, without waiting for the rate limiter")
+                .tags("marketplace", marketplace, "category", category.name(), "page", page.tag(), "outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (bytes > 0) {
+            DistributionSummary.builder("scraping.fetch.bytes")
+                    .description("Downloaded page body size")
+                    .baseUnit("bytes")
+                    .tags("marketplace", marketplace, "category", category.name(), "page", page.tag())
+                    .register(meterRegistry)
+                    .record(bytes);
+        }
+    }
+
+    public void recordParse(String marketplace, Part.PartType category, long nanos, boolean parsed) {
+        Timer.builder("scraping.parse.time")
+                .description("Time to parse one listing, or one search response where it carries whole listings")
+                .tags("marketplace", marketplace, "category", category.name(), "outcome", parsed ? "parsed" : "failed")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSave(String marketplace, long nanos, int batchSize) {
+        Timer.builder("scraping.save.time")
+                .description("Time of one ingest transaction")
+                .tag("marketplace", marketplace)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("scraping.save.batch.size")
+                .description("Parts per ingest transaction")
+                .tag("marketplace", marketplace)
+                .register(meterRegistry)
+                .record(batchSize);
+    }
+
+    public void countListings(String marketplace, Part.PartType category, PartIngestService.IngestResult result) {
+        countListings(marketplace, category, "inserted", result.inserted());
+        countListings(marketplace, category, "updated", result.updated());
+        countListings(marketplace, category, "duplicate", result.getTotalDuplicates());
+    }
+
+    public void countFailed(String marketplace, Part.PartType category, int failed) {
+        countListings(marketplace, category, "failed", failed);
+    }
+
+    public void recordRun(String marketplace, Part.PartType category, int pages, StopReason reason) {
+        DistributionSummary.builder("scraping.run.pages")
+                .description("List pages walked per category run")
+                .tags("marketplace", marketplace, "category", category.name())
+                .register(meterRegistry)
+                .record(pages);
+        Counter.builder("scraping.run.stops")
+                .description("Category runs by the reason they stopped")
+                .tags("marketplace", marketplace, "category", category.name(), "reason", reason.tag())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void countListings(String marketplace, Part.PartType category, String result, int count) {
+        if (count <= 0) {
+            return;
+        }
+        Counter.builder("scraping.listings")
+                .description("Listings by what happened to them")
+                .tags("marketplace", marketplace, "category", category.name(), "result", result)
+                .register(meterRegistry)
+                .increment(count);
+    }
+}
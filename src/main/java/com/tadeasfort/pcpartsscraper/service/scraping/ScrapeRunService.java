@@ -0,0 +1,166 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.model.ScrapeRun;
+import com.tadeasfort.pcpartsscraper.repository.ScrapeRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * History of category runs in scrape_runs.
+ * <p>
+ * A marketplace opens a {@link ScrapeRunTracker} when it starts a category and
+ * hands it back when the run ends; the run is then stored as one row. Trends
+ * are daily aggregates of those rows per category, used to spot throughput
+ * regressions and to size intervals and concurrency.
+ */
+@Service
+@Slf4j
+public class ScrapeRunService {
+
+    private final ScrapeRunRepository scrapeRunRepository;
+    private final ScrapeMetrics metrics;
+    private final String nodeName = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Value("${app.scraping.run-history.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.scraping.run-history.retention-days:90}")
+    private int retentionDays;
+
+    public ScrapeRunService(ScrapeRunRepository scrapeRunRepository, ScrapeMetrics metrics) {
+        this.scrapeRunRepository = scrapeRunRepository;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Daily totals of one category
+     *
+     * @param listingsQueued    new listings handed to the crawl frontier
+     * @param listingsPerMinute listings fetched per minute of crawling
+     * @param fetchLatencyP95Ms mean of the runs' p95 fetch latency, null if nothing was fetched
+     */
+    public record DailyStats(LocalDate date, int runs, long pages, long listingsFetched, long listingsQueued,
+            long inserted, long duplicates, long errors, long bytesDownloaded, double avgDurationSeconds,
+            double listingsPerMinute, Double fetchLatencyP95Ms) {
+    }
+
+    /**
+     * Runs of one category over the trend window, oldest day first
+     */
+    public record CategoryTrend(String marketplace, Part.PartType category, ScrapeRun lastRun,
+            List<DailyStats> days) {
+    }
+
+    public ScrapeRunTracker start(String marketplace, Part.PartType category) {
+        return new ScrapeRunTracker(metrics, marketplace, category);
+    }
+
+    /**
+     * End a run and store it. A failed write is logged and doesn't fail the run.
+     *
+     * @param pages list pages walked
+     */
+    public void finish(ScrapeRunTracker tracker, int pages, ScrapeMetrics.StopReason reason) {
+        ScrapeRun run = tracker.finish(pages, reason, nodeName);
+        if (!enabled) {
+            return;
+        }
+        try {
+            scrapeRunRepository.save(run);
+        } catch (RuntimeException e) {
+            log.warn("Failed to store {} {} run: {}", run.getMarketplace(), run.getCategory(), e.getMessage());
+        }
+    }
+
+    /**
+     * Latest runs, newest first
+     *
+     * @param marketplace null for all
+     * @param category    null for all
+     */
+    public List<ScrapeRun> findRecent(String marketplace, Part.PartType category, int limit) {
+        return scrapeRunRepository.findRecent(marketplace, category, PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    /**
+     * Daily trends of every category run in the last {@code days} days
+     *
+     * @param marketplace null for all
+     */
+    public List<CategoryTrend> getTrends(String marketplace, int days) {
+        LocalDateTime since = LocalDate.now().minusDays(Math.max(1, days) - 1L).atStartOfDay();
+        Map<String, List<ScrapeRun>> runsByCategory = scrapeRunRepository.findStartedSince(since, marketplace)
+                .stream()
+                .collect(Collectors.groupingBy(run -> run.getMarketplace() + "/" + run.getCategory(), TreeMap::new,
+                        Collectors.toList()));
+
+        List<CategoryTrend> trends = new ArrayList<>();
+        for (List<ScrapeRun> runs : runsByCategory.values()) {
+            Map<LocalDate, List<ScrapeRun>> runsByDay = runs.stream()
+                    .collect(Collectors.groupingBy(run -> run.getStartedAt().toLocalDate(), TreeMap::new,
+                            Collectors.toList()));
+            List<DailyStats> dailyStats = runsByDay.entrySet().stream()
+                    .map(entry -> dailyStats(entry.getKey(), entry.getValue()))
+                    .toList();
+            ScrapeRun lastRun = runs.getLast();
+            trends.add(new CategoryTrend(lastRun.getMarketplace(), lastRun.getCategory(), lastRun, dailyStats));
+        }
+        return trends;
+    }
+
+    @Scheduled(cron = "${app.scraping.run-history.cleanup-cron:0 45 3 * * *}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = scrapeRunRepository.deleteStartedBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Deleted {} scrape runs older than {} days", deleted, retentionDays);
+        }
+    }
+
+    static DailyStats dailyStats(LocalDate date, List<ScrapeRun> runs) {
+        long pages = 0;
+        long listingsFetched = 0;
+        long listingsQueued = 0;
+        long inserted = 0;
+        long duplicates = 0;
+        long errors = 0;
+        long bytes = 0;
+        long durationMs = 0;
+        double p95Sum = 0;
+        int p95Count = 0;
+        for (ScrapeRun run : runs) {
+            pages += run.getPages();
+            listingsFetched += run.getListingsFetched();
+            if (run.getListingsQueued() != null) {
+                listingsQueued += run.getListingsQueued();
+            }
+            inserted += run.getInserted();
+            duplicates += run.getDuplicates();
+            errors += run.getErrors();
+            bytes += run.getBytesDownloaded();
+            durationMs += run.getDurationMs();
+            if (run.getFetchLatencyP95Ms() != null) {
+                p95Sum += run.getFetchLatencyP95Ms();
+                p95Count++;
+            }
+        }
+        double minutes = durationMs / 60_000.0;
+        return new DailyStats(date, runs.size(), pages, listingsFetched, listingsQueued, inserted, duplicates,
+                errors, bytes, durationMs / 1000.0 / runs.size(), minutes > 0 ? listingsFetched / minutes : 0,
+                p95Count > 0 ? p95Sum / p95Count : null);
+    }
+}
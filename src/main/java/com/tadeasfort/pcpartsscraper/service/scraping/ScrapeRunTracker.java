@@ -0,0 +1,150 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.model.ScrapeRun;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tallies of one category run. Every observation is also passed on to
+ * {@link ScrapeMetrics}; at the end of the run the tallies become a
+ * {@link ScrapeRun} row. Safe to use from the crawl's concurrent fetchers.
+ */
+public class ScrapeRunTracker {
+
+    private final ScrapeMetrics metrics;
+    private final String marketplace;
+    private final Part.PartType category;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicInteger listingsFetched = new AtomicInteger();
+    private final AtomicInteger listingsQueued = new AtomicInteger();
+    private final AtomicInteger inserted = new AtomicInteger();
+    private final AtomicInteger updated = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+
+    // Fetch latencies in nanoseconds, for the run's percentiles
+    private long[] latencies = new long[256];
+    private int latencyCount;
+
+    ScrapeRunTracker(ScrapeMetrics metrics, String marketplace, Part.PartType category) {
+        this.metrics = metrics;
+        this.marketplace = marketplace;
+        this.category = category;
+    }
+
+    public String getMarketplace() {
+        return marketplace;
+    }
+
+    public Part.PartType getCategory() {
+        return category;
+    }
+
+    /**
+     * Record a list or detail page request. A successful detail page counts as
+     * a fetched listing, a failed list page as an error.
+     */
+    public void recordFetch(ScrapeMetrics.PageKind page, String outcome, long nanos, int bytes) {
+        metrics.recordFetch(marketplace, category, page, outcome, nanos, bytes);
+        addLatency(nanos);
+        bytesDownloaded.addAndGet(bytes);
+        boolean error = "error".equals(outcome);
+        if (page == ScrapeMetrics.PageKind.DETAIL && !error) {
+            listingsFetched.incrementAndGet();
+        } else if (page == ScrapeMetrics.PageKind.LIST && error) {
+            errors.incrementAndGet();
+        }
+    }
+
+    public void recordParse(long nanos, boolean parsed) {
+        metrics.recordParse(marketplace, category, nanos, parsed);
+    }
+
+    /**
+     * Count listings that came with a list page instead of their own detail page
+     */
+    public void countFetchedListings(int count) {
+        listingsFetched.addAndGet(count);
+    }
+
+    /**
+     * Count new listings queued in the crawl frontier. Their fetch and ingest
+     * happen on the frontier workers, outside of this run.
+     */
+    public void countQueued(int count) {
+        listingsQueued.addAndGet(count);
+    }
+
+    public void countListings(PartIngestService.IngestResult result) {
+        metrics.countListings(marketplace, category, result);
+        inserted.addAndGet(result.inserted());
+        updated.addAndGet(result.updated());
+        duplicates.addAndGet(result.getTotalDuplicates());
+    }
+
+    public void countFailed(int failed) {
+        metrics.countFailed(marketplace, category, failed);
+        errors.addAndGet(failed);
+    }
+
+    /**
+     * Close the run: record its page count and stop reason and build its history row
+     */
+    ScrapeRun finish(int pages, ScrapeMetrics.StopReason reason, String node) {
+        metrics.recordRun(marketplace, category, pages, reason);
+
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(sorted);
+
+        return ScrapeRun.builder()
+                .marketplace(marketplace)
+                .category(category)
+                .node(node)
+                .startedAt(startedAt)
+                .finishedAt(LocalDateTime.now())
+                .durationMs(Duration.ofNanos(System.nanoTime() - startNanos).toMillis())
+                .pages(pages)
+                .listingsFetched(listingsFetched.get())
+                .listingsQueued(listingsQueued.get())
+                .inserted(inserted.get())
+                .updated(updated.get())
+                .duplicates(duplicates.get())
+                .errors(errors.get())
+                .bytesDownloaded(bytesDownloaded.get())
+                .stopReason(reason.name())
+                .fetchLatencyP50Ms(percentileMillis(sorted, 0.50))
+                .fetchLatencyP95Ms(percentileMillis(sorted, 0.95))
+                .build();
+    }
+
+    private synchronized void addLatency(long nanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[latencyCount++] = nanos;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted latencies
+     *
+     * @return milliseconds, null if there are none
+     */
+    static Double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return null;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+}
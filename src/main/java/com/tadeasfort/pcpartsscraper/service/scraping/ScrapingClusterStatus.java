@@ -0,0 +1,120 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.boot.autoconfigure.quartz.JobStoreType;
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Which scheduler node is alive and which one runs or last ran each category.
+ * <p>
+ * Heartbeats and running jobs are read straight from the Quartz tables, which
+ * every node of a cluster shares; a node's own scheduler only knows about its
+ * own jobs. With the in-memory job store only this node is reported.
+ */
+@Component
+public class ScrapingClusterStatus {
+
+    private final Scheduler scheduler;
+    private final JdbcTemplate jdbcTemplate;
+    private final QuartzProperties quartzProperties;
+
+    public ScrapingClusterStatus(Scheduler scheduler, JdbcTemplate jdbcTemplate, QuartzProperties quartzProperties) {
+        this.scheduler = scheduler;
+        this.jdbcTemplate = jdbcTemplate;
+        this.quartzProperties = quartzProperties;
+    }
+
+    public Map<String, Object> getStatus() throws SchedulerException {
+        boolean jdbcStore = quartzProperties.getJobStoreType() == JobStoreType.JDBC;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("node", scheduler.getSchedulerInstanceId());
+        status.put("clustered", scheduler.getMetaData().isJobStoreClustered());
+        status.put("nodes", jdbcStore ? findNodes() : List.of(Map.of("node", scheduler.getSchedulerInstanceId())));
+        status.put("running", jdbcStore ? findRunning() : Map.of());
+        status.put("categories", findLastRuns());
+        return status;
+    }
+
+    /**
+     * Number of nodes currently checking in, at least 1. Without the JDBC job
+     * store this node is alone.
+     */
+    public int countLiveNodes() throws SchedulerException {
+        if (quartzProperties.getJobStoreType() != JobStoreType.JDBC) {
+            return 1;
+        }
+        long alive = findNodes().stream().filter(node -> Boolean.TRUE.equals(node.get("alive"))).count();
+        return (int) Math.max(1, alive);
+    }
+
+    // Heartbeats - a node is considered dead once it misses a couple of check-ins
+    private List<Map<String, Object>> findNodes() throws SchedulerException {
+        long now = System.currentTimeMillis();
+        return jdbcTemplate.query("SELECT instance_name, last_checkin_time, checkin_interval FROM "
+                + table("SCHEDULER_STATE") + " WHERE sched_name = ? ORDER BY instance_name", (rs, rowNum) -> {
+                    long lastCheckin = rs.getLong("last_checkin_time");
+                    long interval = rs.getLong("checkin_interval");
+                    Map<String, Object> node = new LinkedHashMap<>();
+                    node.put("node", rs.getString("instance_name"));
+                    node.put("lastCheckin", Instant.ofEpochMilli(lastCheckin));
+                    node.put("alive", now - lastCheckin <= interval * 2 + 7_500);
+                    return node;
+                }, schedulerName());
+    }
+
+    // Category job -> node currently executing it
+    private Map<String, Object> findRunning() throws SchedulerException {
+        Map<String, Object> running = new TreeMap<>();
+        jdbcTemplate.query("SELECT job_name, instance_name, fired_time FROM " + table("FIRED_TRIGGERS")
+                + " WHERE sched_name = ? AND state = 'EXECUTING' AND job_group = 'scraping'", rs -> {
+                    running.put(rs.getString("job_name"), Map.of(
+                            "node", rs.getString("instance_name"),
+                            "since", Instant.ofEpochMilli(rs.getLong("fired_time"))));
+                }, schedulerName());
+        return running;
+    }
+
+    // Category job -> node and time of its last run, from the persisted job data
+    private List<Map<String, Object>> findLastRuns() throws SchedulerException {
+        List<Map<String, Object>> categories = new ArrayList<>();
+        for (JobKey jobKey : scheduler.getJobKeys(GroupMatcher.jobGroupEquals("scraping"))) {
+            JobDetail job = scheduler.getJobDetail(jobKey);
+            if (job == null) {
+                continue;
+            }
+            JobDataMap data = job.getJobDataMap();
+            Map<String, Object> category = new LinkedHashMap<>();
+            category.put("job", jobKey.getName());
+            category.put("lastNode", data.get("lastExecutionNode"));
+            category.put("lastStart", data.containsKey("lastExecutionStart")
+                    ? Instant.ofEpochMilli(data.getLong("lastExecutionStart"))
+                    : null);
+            category.put("intervalMinutes", data.get(AdaptiveScrapeInterval.INTERVAL_KEY));
+            categories.add(category);
+        }
+        categories.sort((a, b) -> ((String) a.get("job")).compareTo((String) b.get("job")));
+        return categories;
+    }
+
+    private String schedulerName() throws SchedulerException {
+        return scheduler.getSchedulerName();
+    }
+
+    private String table(String name) {
+        return quartzProperties.getProperties().getOrDefault("org.quartz.jobStore.tablePrefix", "QRTZ_") + name;
+    }
+}
@@ -0,0 +1,214 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.repository.PartRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter of every (marketplace, externalId) pair stored in the
+ * database. Discovery consults it before asking the database whether listings
+ * are already known: a listing the filter has never seen is new without a
+ * round-trip, so only the filter's hits are looked up.
+ * <p>
+ * The filters are built by a streaming scan over the parts table at startup
+ * and rebuilt periodically; every insert is added right away.
+ */
+@Service
+@Slf4j
+public class SeenListingFilter {
+
+    private final PartRepository partRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${app.scraping.seen-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.scraping.seen-filter.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${app.scraping.seen-filter.max-memory-mb:32}")
+    private int maxMemoryMb;
+
+    @Value("${app.scraping.seen-filter.min-expected-insertions:100000}")
+    private long minExpectedInsertions;
+
+    private volatile Map<String, BloomFilter> filters = Map.of();
+    private volatile Map<String, BloomFilter> building;
+    private volatile LocalDateTime lastBuild;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public SeenListingFilter(PartRepository partRepository, PlatformTransactionManager transactionManager) {
+        this.partRepository = partRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            // Don't hold up startup - discovery falls back to the database until the filter is ready
+            Thread.ofVirtual().name("seen-listing-filter-warmup").start(this::rebuild);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.scraping.seen-filter.rebuild-interval-hours:24}",
+            initialDelayString = "${app.scraping.seen-filter.rebuild-interval-hours:24}", timeUnit = TimeUnit.HOURS)
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild all filters from the database. Inserts that happen while the scan
+     * is running are added to both the old and the new filters.
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.debug("Seen listing filter rebuild already running");
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, BloomFilter> fresh = new ConcurrentHashMap<>();
+
+            List<Object[]> counts = partRepository.getListingCountsByMarketplace();
+            long budgetPerFilter = (long) maxMemoryMb * 1024 * 1024 / Math.max(1, counts.size());
+            for (Object[] row : counts) {
+                long count = ((Number) row[1]).longValue();
+                // Leave room for the listings inserted until the next rebuild
+                long expected = Math.max(minExpectedInsertions, count * 2);
+                fresh.put((String) row[0], BloomFilter.create(expected, falsePositiveRate, budgetPerFilter));
+            }
+
+            building = fresh;
+            long scanned = readOnlyTransaction.execute(status -> {
+                long rows = 0;
+                try (Stream<Object[]> ids = partRepository.streamListingIds()) {
+                    for (Object[] id : (Iterable<Object[]>) ids::iterator) {
+                        put(fresh, (String) id[0], (String) id[1]);
+                        rows++;
+                    }
+                }
+                return rows;
+            });
+
+            filters = fresh;
+            building = null;
+            lastBuild = LocalDateTime.now();
+
+            log.info("Built seen listing filter for {} marketplaces from {} listings in {} ms",
+                    fresh.size(), scanned, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            building = null;
+            log.error("Failed to build seen listing filter: {}", e.getMessage(), e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Find which of the given listing IDs are already stored.
+     * IDs the filter has never seen are new without asking the database; IDs it
+     * reports as present are confirmed with the lookup, since a false positive
+     * would otherwise never be fetched.
+     *
+     * @param marketplace marketplace name
+     * @param externalIds listing IDs to check
+     * @param lookup      database lookup used when the filter can't answer
+     * @return IDs that are already stored
+     */
+    public Set<String> findKnown(String marketplace, Collection<String> externalIds,
+            Function<Collection<String>, Set<String>> lookup) {
+        BloomFilter filter = enabled && lastBuild != null ? filters.get(marketplace) : null;
+        if (filter == null) {
+            return lookup.apply(externalIds);
+        }
+
+        Set<String> candidates = new HashSet<>();
+        for (String externalId : externalIds) {
+            if (filter.mightContain(externalId)) {
+                candidates.add(externalId);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        return lookup.apply(candidates);
+    }
+
+    /**
+     * Add freshly inserted parts to the filters
+     */
+    public void recordAll(Collection<Part> parts) {
+        if (!enabled) {
+            return;
+        }
+
+        Map<String, BloomFilter> current = filters;
+        Map<String, BloomFilter> pending = building;
+        for (Part part : parts) {
+            put(current, part.getMarketplace(), part.getExternalId());
+            if (pending != null) {
+                put(pending, part.getMarketplace(), part.getExternalId());
+            }
+        }
+    }
+
+    /**
+     * Get filter statistics per marketplace
+     *
+     * @return size, fill ratio and false positive estimate of each filter
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("lastBuild", lastBuild);
+        stats.put("rebuilding", rebuilding.get());
+
+        Map<String, Object> perMarketplace = new LinkedHashMap<>();
+        filters.forEach((marketplace, filter) -> {
+            Map<String, Object> filterStats = new LinkedHashMap<>();
+            filterStats.put("expectedInsertions", filter.expectedInsertions());
+            filterStats.put("insertions", filter.insertions());
+            filterStats.put("bitSize", filter.bitSize());
+            filterStats.put("sizeInBytes", filter.sizeInBytes());
+            filterStats.put("hashFunctions", filter.hashFunctions());
+            filterStats.put("fillRatio", filter.fillRatio());
+            filterStats.put("estimatedFalsePositiveRate", filter.estimatedFalsePositiveRate());
+            perMarketplace.put(marketplace, filterStats);
+        });
+        stats.put("marketplaces", perMarketplace);
+        return stats;
+    }
+
+    // A marketplace without a filter is answered by the database until the next rebuild
+    private static void put(Map<String, BloomFilter> target, String marketplace, String externalId) {
+        BloomFilter filter = target.get(marketplace);
+        if (filter != null) {
+            filter.put(externalId);
+        }
+    }
+}
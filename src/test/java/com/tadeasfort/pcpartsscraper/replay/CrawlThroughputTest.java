@@ -0,0 +1,101 @@
+package com.tadeasfort.pcpartsscraper.replay;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.repository.PartRepository;
+import com.tadeasfort.pcpartsscraper.service.scraping.BazosScrapingService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.TestSocketUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Full multi-category crawl against the stub marketplace into a real Postgres.
+ * Reports listings/s, inserts/s and peak heap. Tagged "throughput" and only
+ * run by ./gradlew throughputTest (needs Docker).
+ */
+@SpringBootTest
+@ActiveProfiles({ "test", "replay" })
+@Tag("throughput")
+@Testcontainers(disabledWithoutDocker = true)
+class CrawlThroughputTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CrawlThroughputTest.class);
+
+    private static final int PAGES_PER_CATEGORY = 10;
+    private static final int STUB_PORT = TestSocketUtils.findAvailableTcpPort();
+    private static final Map<Part.PartType, String> CATEGORIES = Map.of(
+            Part.PartType.GPU, "graficka",
+            Part.PartType.CPU, "procesor",
+            Part.PartType.RAM, "pamet",
+            Part.PartType.LAPTOP, "notebook",
+            Part.PartType.MONITOR, "monitor",
+            Part.PartType.MOTHERBOARD, "motherboard");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("app.replay.port", () -> STUB_PORT);
+        registry.add("app.replay.pages-per-category", () -> PAGES_PER_CATEGORY);
+        registry.add("app.scraping.enabled", () -> true);
+    }
+
+    @Autowired
+    private BazosScrapingService bazosService;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private StubMarketplaceServer stubServer;
+
+    @Test
+    void crawlAllCategories() {
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        long partsBefore = partRepository.count();
+        long detailRequestsBefore = stubServer.getStats().get("detailRequests");
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CATEGORIES.forEach((partType, path) -> executor.submit(() -> bazosService.scrapeCategory(partType, path)));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long inserted = partRepository.count() - partsBefore;
+        long listings = stubServer.getStats().get("detailRequests") - detailRequestsBefore;
+        long peakHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+
+        log.info("Crawled {} categories in {} s: {} listings/s, {} inserts/s, peak heap {} MB - stub {}",
+                CATEGORIES.size(), String.format("%.2f", seconds), String.format("%.1f", listings / seconds),
+                String.format("%.1f", inserted / seconds), peakHeap / (1024 * 1024), stubServer.getStats());
+
+        assertThat(inserted).isEqualTo((long) CATEGORIES.size() * PAGES_PER_CATEGORY * 20);
+    }
+}
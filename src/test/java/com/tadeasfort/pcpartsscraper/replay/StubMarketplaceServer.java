@@ -0,0 +1,200 @@
+package com.tadeasfort.pcpartsscraper.replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for pc.bazos.cz, started with the replay profile.
+ * <p>
+ * Every category has a configurable number of list pages with 20 listings each;
+ * detail pages are the recorded pages from replay/bazos with the listing ID
+ * added to the title, so each listing gets its own unique hash. Responses can
+ * be slowed down and made to fail at a given rate to mimic the real site.
+ */
+@Component
+@Profile("replay")
+@Slf4j
+public class StubMarketplaceServer {
+
+    private static final int LISTINGS_PER_PAGE = 20;
+    private static final String[] DETAIL_PAGES = { "detail-gpu", "detail-cpu", "detail-ram", "detail-notebook" };
+    private static final Pattern DETAIL_PATH = Pattern.compile("^/inzerat/(\\d+)/");
+
+    @Value("${app.replay.port:18080}")
+    private int port;
+
+    @Value("${app.replay.latency-ms:50}")
+    private long latencyMs;
+
+    @Value("${app.replay.latency-jitter-ms:25}")
+    private long latencyJitterMs;
+
+    @Value("${app.replay.error-rate:0.0}")
+    private double errorRate;
+
+    @Value("${app.replay.pages-per-category:5}")
+    private int pagesPerCategory;
+
+    private final List<String> detailTemplates = new ArrayList<>();
+    private final AtomicLong listRequests = new AtomicLong();
+    private final AtomicLong detailRequests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() throws IOException {
+        for (String name : DETAIL_PAGES) {
+            try (InputStream in = new ClassPathResource("replay/bazos/" + name + ".html").getInputStream()) {
+                detailTemplates.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+
+        log.info("Stub marketplace listening on {} ({} pages per category, {} ms latency, {} error rate)",
+                getBaseUrl(), pagesPerCategory, latencyMs, errorRate);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.close();
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Get request counters
+     *
+     * @return list page, detail page and failed request counts
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("listRequests", listRequests.get());
+        stats.put("detailRequests", detailRequests.get());
+        stats.put("failedRequests", failedRequests.get());
+        return stats;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            simulateLatency();
+
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failedRequests.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            Matcher detail = DETAIL_PATH.matcher(path);
+            String body;
+            if (detail.find()) {
+                detailRequests.incrementAndGet();
+                body = detailPage(Long.parseLong(detail.group(1)));
+            } else {
+                listRequests.incrementAndGet();
+                body = listPage(path);
+            }
+
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private void simulateLatency() {
+        long delay = latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // "/graficka/" is page 1, "/graficka/40/" page 2 - the same offsets the scraper builds
+    private String listPage(String path) {
+        String[] segments = path.replaceAll("^/+|/+$", "").split("/");
+        if (segments.length == 0 || segments[0].isEmpty()) {
+            return null;
+        }
+
+        String category = segments[0];
+        int page;
+        try {
+            page = segments.length > 1 ? Math.max(1, Integer.parseInt(segments[1]) / LISTINGS_PER_PAGE) : 1;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        StringBuilder html = new StringBuilder(8192)
+                .append("<!DOCTYPE html><html lang=\"cs\"><head><meta charset=\"utf-8\"><title>")
+                .append(category).append(" - PC Bazoš</title></head><body><div class=\"sirka\">\n");
+
+        if (page <= pagesPerCategory) {
+            // Newest first, like the real site - IDs fall from page to page
+            long firstId = 100_000_000L + Math.floorMod(category.hashCode(), 900) * 1_000_000L
+                    + (long) (pagesPerCategory - page + 1) * LISTINGS_PER_PAGE - 1;
+            for (long id = firstId; id > firstId - LISTINGS_PER_PAGE; id--) {
+                html.append("<div class=\"inzeraty inzeratyflex\"><div class=\"inzeratynadpis\">")
+                        .append("<h2 class=\"nadpis\"><a href=\"/inzerat/").append(id).append("/listing-")
+                        .append(id).append(".php\">Listing ").append(id).append("</a></h2></div></div>\n");
+            }
+            if (page < pagesPerCategory) {
+                html.append("<div class=\"strankovani\"><a href=\"/").append(category).append('/')
+                        .append((page + 1) * LISTINGS_PER_PAGE).append("/\"><b>Další</b></a></div>\n");
+            }
+        }
+
+        return html.append("</div></body></html>\n").toString();
+    }
+
+    private String detailPage(long id) {
+        String template = detailTemplates.get((int) (id % detailTemplates.size()));
+        return template.replace("</h1>", " " + id + "</h1>");
+    }
+}
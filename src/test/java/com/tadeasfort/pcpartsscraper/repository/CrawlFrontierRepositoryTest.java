@@ -0,0 +1,74 @@
+package com.tadeasfort.pcpartsscraper.repository;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CrawlFrontierRepositoryTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Autowired
+    private CrawlFrontierRepository frontierRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clear() {
+        jdbcTemplate.update("DELETE FROM crawl_frontier");
+    }
+
+    @Test
+    void claimsByPriorityAndNeverHandsOutAClaimedUrlTwice() {
+        frontierRepository.enqueue("bazos", Part.PartType.GPU, List.of("u1", "u2"), 1);
+        frontierRepository.enqueue("bazos", Part.PartType.CPU, List.of("u3"), 5);
+        // Already waiting - ignored
+        assertThat(frontierRepository.enqueue("bazos", Part.PartType.GPU, List.of("u1"), 9)).isZero();
+
+        List<CrawlFrontierRepository.ClaimedUrl> first = frontierRepository.claim("bazos", "a", 2, LEASE, 5);
+        assertThat(first).extracting(CrawlFrontierRepository.ClaimedUrl::url).containsExactly("u3", "u1");
+        assertThat(first.get(0).partType()).isEqualTo(Part.PartType.CPU);
+        assertThat(first.get(0).attempts()).isEqualTo(1);
+
+        List<CrawlFrontierRepository.ClaimedUrl> second = frontierRepository.claim("bazos", "b", 2, LEASE, 5);
+        assertThat(second).extracting(CrawlFrontierRepository.ClaimedUrl::url).containsExactly("u2");
+        assertThat(frontierRepository.claim("bazos", "c", 2, LEASE, 5)).isEmpty();
+
+        frontierRepository.complete(first.stream().map(CrawlFrontierRepository.ClaimedUrl::id).toList());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM crawl_frontier", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void expiredLeasesAndDueRetriesAreClaimedAgain() throws InterruptedException {
+        frontierRepository.enqueue("bazos", Part.PartType.GPU, List.of("crashed", "failed"), 1);
+
+        // A worker that dies keeps its claim only until the lease runs out
+        List<CrawlFrontierRepository.ClaimedUrl> claimed = frontierRepository.claim("bazos", "dead", 2,
+                Duration.ZERO, 5);
+        assertThat(claimed).hasSize(2);
+        CrawlFrontierRepository.ClaimedUrl failed = claimed.get(1);
+        frontierRepository.retry(failed.id(), "HTTP 500", LocalDateTime.now().plusHours(1));
+        Thread.sleep(10);
+
+        List<CrawlFrontierRepository.ClaimedUrl> reclaimed = frontierRepository.claim("bazos", "alive", 2, LEASE, 5);
+        assertThat(reclaimed).extracting(CrawlFrontierRepository.ClaimedUrl::url).containsExactly("crashed");
+        assertThat(reclaimed.get(0).attempts()).isEqualTo(2);
+
+        // Out of attempts - never claimed again
+        frontierRepository.retry(failed.id(), "HTTP 500", LocalDateTime.now().minusSeconds(1));
+        assertThat(frontierRepository.claim("bazos", "alive", 2, LEASE, 1)).isEmpty();
+    }
+}
@@ -0,0 +1,30 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AdaptiveScrapeIntervalTest {
+
+    @Test
+    void firstRunTakesObservedRate() {
+        assertThat(AdaptiveScrapeInterval.ewma(null, 12.0, 0.3)).isEqualTo(12.0);
+    }
+
+    @Test
+    void laterRunsAreSmoothed() {
+        assertThat(AdaptiveScrapeInterval.ewma(10.0, 20.0, 0.3)).isCloseTo(13.0, within(1e-9));
+    }
+
+    @Test
+    void intervalFollowsArrivalRateWithinBounds() {
+        // 40 listings at 20/h -> 2 hours
+        assertThat(AdaptiveScrapeInterval.intervalMinutes(20.0, 40, 30, 1440)).isEqualTo(120);
+        // Hot category is capped at the minimum
+        assertThat(AdaptiveScrapeInterval.intervalMinutes(500.0, 40, 30, 1440)).isEqualTo(30);
+        // Quiet and dead categories wait the maximum
+        assertThat(AdaptiveScrapeInterval.intervalMinutes(0.5, 40, 30, 1440)).isEqualTo(1440);
+        assertThat(AdaptiveScrapeInterval.intervalMinutes(0.0, 40, 30, 1440)).isEqualTo(1440);
+    }
+}
@@ -0,0 +1,53 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.tadeasfort.pcpartsscraper.model.Part;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the streaming path and the DOM fallback turn the detail page
+ * fixtures into the same listing.
+ */
+class BazosListingParserTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "detail-gpu", "detail-cpu", "detail-ram", "detail-notebook" })
+    void streamingAndDomPathsAgree(String fixture) throws IOException {
+        String url = "https://pc.bazos.cz/inzerat/" + (100 + fixture.length()) + "/" + fixture + ".php";
+        PageFetcher.FetchResult page = loadFixture(fixture, url);
+
+        BazosListingParser streaming = new BazosListingParser(true);
+        BazosListingParser dom = new BazosListingParser(false);
+
+        // The streaming path must handle the fixture itself, not fall back to the DOM
+        BazosListingParser.PageContent streamed = streaming.streamContent(page);
+        assertThat(streamed).as("streamed content of %s", fixture).isNotNull();
+        assertThat(streamed.text()).isEqualTo(dom.domContent(page).text());
+
+        Part fromStream = streaming.parse(url, page, Part.PartType.GPU);
+        Part fromDom = dom.parse(url, page, Part.PartType.GPU);
+        assertThat(fromStream).as("streamed %s", fixture).isNotNull();
+        assertThat(fromDom).as("DOM-parsed %s", fixture).isNotNull();
+
+        assertThat(fromStream.getTitle()).isEqualTo(fromDom.getTitle());
+        assertThat(fromStream.getPrice()).isEqualTo(fromDom.getPrice());
+        assertThat(fromStream.getLocation()).isEqualTo(fromDom.getLocation());
+        assertThat(fromStream.getSellerName()).isEqualTo(fromDom.getSellerName());
+        assertThat(fromStream.getPhone()).isEqualTo(fromDom.getPhone());
+        assertThat(fromStream.getViewCount()).isEqualTo(fromDom.getViewCount());
+        assertThat(fromStream.getIsPromoted()).isEqualTo(fromDom.getIsPromoted());
+    }
+
+    private static PageFetcher.FetchResult loadFixture(String name, String url) throws IOException {
+        try (InputStream in = BazosListingParserTest.class.getResourceAsStream("/replay/bazos/" + name + ".html")) {
+            assertThat(in).as("fixture %s", name).isNotNull();
+            return new PageFetcher.FetchResult(url, 200, in.readAllBytes(), StandardCharsets.UTF_8, false, 0);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Checks the single-pass extractor against the per-field regex methods it
+ * replaced, on the detail page fixtures.
+ */
+class ListingFieldExtractorTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "detail-gpu", "detail-cpu", "detail-ram", "detail-notebook" })
+    void matchesLegacyExtractorsOnFixtures(String fixture) throws IOException {
+        Document doc = loadFixture(fixture);
+
+        // Flattened body text as the DOM fallback sees it, and the raw text with line breaks
+        assertSameAsLegacy(doc.body().text());
+        assertSameAsLegacy(doc.body().wholeText());
+    }
+
+    @Test
+    void extractsFieldsFromDetailPage() throws IOException {
+        String text = loadFixture("detail-gpu").body().wholeText();
+
+        ListingFieldExtractor.ListingFields fields = ListingFieldExtractor.extract(text,
+                new ListingFieldExtractor.ListingFields());
+
+        assertThat(fields.getPrice()).isEqualByComparingTo("7490");
+        assertThat(fields.getViewCount()).isEqualTo(1243);
+        assertThat(fields.getDateCreated()).isEqualTo(LocalDate.of(2025, 7, 4).atStartOfDay());
+        assertThat(fields.getDescription()).startsWith("Prodám grafickou kartu");
+        assertThat(fields.isPromoted()).isTrue();
+    }
+
+    @Test
+    void reusedResultIsReset() throws IOException {
+        ListingFieldExtractor.ListingFields fields = new ListingFieldExtractor.ListingFields();
+        ListingFieldExtractor.extract(loadFixture("detail-gpu").body().wholeText(), fields);
+        ListingFieldExtractor.extract(loadFixture("detail-ram").body().wholeText(), fields);
+
+        assertThat(fields.getPhone()).isNull();
+        assertThat(fields.getPrice()).isNull();
+        assertThat(fields.isPromoted()).isFalse();
+    }
+
+    private static void assertSameAsLegacy(String text) {
+        ListingFieldExtractor.ListingFields fields = ListingFieldExtractor.extract(text,
+                new ListingFieldExtractor.ListingFields());
+
+        assertThat(fields.getPrice()).isEqualTo(Legacy.extractPrice(text));
+        assertThat(fields.getLocation()).isEqualTo(Legacy.extractLocation(text));
+        assertThat(fields.getDescription()).isEqualTo(Legacy.extractDescription(text));
+        assertThat(fields.getSellerName()).isEqualTo(Legacy.extractSellerName(text));
+        assertThat(fields.getPhone()).isEqualTo(Legacy.extractPhone(text));
+        assertThat(fields.getViewCount()).isEqualTo(Legacy.extractViewCount(text));
+        assertThat(fields.isPromoted()).isEqualTo(text.contains("TOP"));
+        // A missing date falls back to now() on both sides
+        assertThat(fields.getDateCreated()).isCloseTo(Legacy.extractDateCreated(text), within(5, ChronoUnit.SECONDS));
+    }
+
+    private static Document loadFixture(String name) throws IOException {
+        try (InputStream in = ListingFieldExtractorTest.class.getResourceAsStream("/replay/bazos/" + name + ".html")) {
+            assertThat(in).as("fixture %s", name).isNotNull();
+            return Jsoup.parse(in, "UTF-8", "https://pc.bazos.cz/inzerat/1/" + name + ".php");
+        }
+    }
+
+    /**
+     * The per-field extractors as they were before the single-pass extractor
+     */
+    private static final class Legacy {
+
+        private static final Pattern PRICE_PATTERN = Pattern.compile("(\\d+(?:\\s*\\d*)*)\\s*Kč");
+        private static final Pattern PRICE_IN_TEXT_PATTERN = Pattern
+                .compile("(?i)cena\\s*[:\\-]?\\s*(\\d+(?:\\s*\\d*)*)\\s*(?:kč|czk|,-)", Pattern.CASE_INSENSITIVE);
+        private static final Pattern LOCATION_PATTERN = Pattern.compile("([A-Za-z\\s]+)(\\d{3}\\s*\\d{2})");
+        private static final Pattern DATE_PATTERN = Pattern.compile("\\[(\\d+\\.\\d+\\.\\s*\\d+)\\]");
+
+        static BigDecimal extractPrice(String text) {
+            Matcher matcher = PRICE_PATTERN.matcher(text);
+            if (matcher.find()) {
+                try {
+                    return new BigDecimal(matcher.group(1).replaceAll("\\s+", ""));
+                } catch (NumberFormatException e) {
+                    // Continue to try other patterns
+                }
+            }
+            Matcher textMatcher = PRICE_IN_TEXT_PATTERN.matcher(text);
+            if (textMatcher.find()) {
+                try {
+                    return new BigDecimal(textMatcher.group(1).replaceAll("\\s+", ""));
+                } catch (NumberFormatException e) {
+                    // Continue to other patterns
+                }
+            }
+            return null;
+        }
+
+        static String extractLocation(String text) {
+            Matcher matcher = LOCATION_PATTERN.matcher(text);
+            return matcher.find() ? (matcher.group(1) + matcher.group(2)).trim() : null;
+        }
+
+        static LocalDateTime extractDateCreated(String text) {
+            Matcher matcher = DATE_PATTERN.matcher(text);
+            if (matcher.find()) {
+                try {
+                    return LocalDate.parse(matcher.group(1).trim(), DateTimeFormatter.ofPattern("d.M. yyyy"))
+                            .atStartOfDay();
+                } catch (Exception e) {
+                    // Fall through to now
+                }
+            }
+            return LocalDateTime.now();
+        }
+
+        static String extractDescription(String pageText) {
+            int descStart = -1;
+            int descEnd = -1;
+            for (String pattern : new String[] { "výkonnější než", "Záruka", "Preferuji", "Prodám", "Nabízím" }) {
+                int index = pageText.indexOf(pattern);
+                if (index != -1 && (descStart == -1 || index < descStart)) {
+                    descStart = index;
+                }
+            }
+            for (String pattern : new String[] { "Cena pevná", "Jméno:", "Telefon:", "Lokalita:", "©2025" }) {
+                int index = pageText.indexOf(pattern);
+                if (index != -1 && descStart != -1 && index > descStart && (descEnd == -1 || index < descEnd)) {
+                    descEnd = index;
+                }
+            }
+            if (descStart != -1 && descEnd != -1 && descEnd > descStart) {
+                String description = pageText.substring(descStart, descEnd).trim();
+                if (description.length() > 10 && description.length() < 2000) {
+                    return description;
+                }
+            }
+            return null;
+        }
+
+        static String extractSellerName(String pageText) {
+            Matcher matcher = Pattern.compile("Jméno:([^\\n]+)").matcher(pageText);
+            return matcher.find() ? matcher.group(1).trim() : null;
+        }
+
+        static String extractPhone(String pageText) {
+            Matcher matcher = Pattern.compile("Telefon:([^\\n]+)").matcher(pageText);
+            return matcher.find() ? matcher.group(1).trim() : null;
+        }
+
+        static Integer extractViewCount(String pageText) {
+            Matcher matcher = Pattern.compile("Vidělo:(\\d+)\\s*lidí").matcher(pageText);
+            if (matcher.find()) {
+                try {
+                    return Integer.parseInt(matcher.group(1));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.tadeasfort.pcpartsscraper.service.scraping;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tadeasfort.pcpartsscraper.model.Part;
+import com.tadeasfort.pcpartsscraper.model.ScrapeRun;
+import com.tadeasfort.pcpartsscraper.repository.PartRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Crawls a Sbazar category from a local stub of the search API and checks that
+ * the scheduler picks Sbazar up next to Bazos with its own category budget.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SbazarScrapingServiceTest {
+
+    private static final int LISTINGS = 25;
+    private static final AtomicInteger searchRequests = new AtomicInteger();
+    private static final HttpServer stub = startStub();
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("app.scraping.enabled", () -> true);
+        registry.add("app.scraping.scheduler.auto-startup", () -> false);
+        registry.add("app.tor.enabled", () -> false);
+        registry.add("app.scraping.sbazar.enabled", () -> true);
+        registry.add("app.scraping.sbazar.base-url", () -> "http://localhost:" + stub.getAddress().getPort());
+        registry.add("app.scraping.sbazar.categories", () -> "GPU:1234");
+        registry.add("app.scraping.sbazar.max-concurrent-categories", () -> 2);
+    }
+
+    @Autowired
+    private SbazarScrapingService sbazarService;
+
+    @Autowired
+    private MarketplaceCrawlScheduler crawlScheduler;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private ScrapeRunService scrapeRunService;
+
+    @AfterAll
+    static void stopStub() {
+        stub.stop(0);
+    }
+
+    @Test
+    void crawlsCategoryFromStubAndStopsOnKnownListings() {
+        sbazarService.scrapeCategory(Part.PartType.GPU, "1234");
+
+        List<String> ids = IntStream.range(0, LISTINGS).mapToObj(i -> String.valueOf(1000 - i)).toList();
+        List<Part> stored = partRepository.findByMarketplaceAndExternalIdIn("sbazar", ids);
+        assertThat(stored).hasSize(LISTINGS);
+        assertThat(stored).allSatisfy(part -> {
+            assertThat(part.getPartType()).isEqualTo(Part.PartType.GPU);
+            assertThat(part.getUrl()).contains("/detail/" + part.getExternalId() + "-");
+            assertThat(part.getIdentityHi()).isNotNull();
+        });
+        assertThat(searchRequests.get()).isEqualTo(2);
+
+        // Second run finds only known listings on the first page
+        sbazarService.scrapeCategory(Part.PartType.GPU, "1234");
+        assertThat(searchRequests.get()).isEqualTo(3);
+        assertThat(partRepository.findByMarketplaceAndExternalIdIn("sbazar", ids)).hasSize(LISTINGS);
+
+        // Both runs are in the history, newest first
+        List<ScrapeRun> runs = scrapeRunService.findRecent("sbazar", Part.PartType.GPU, 10);
+        assertThat(runs).hasSize(2);
+        assertThat(runs.get(0).getStopReason()).isEqualTo("KNOWN_RATIO");
+        assertThat(runs.get(0).getPages()).isEqualTo(1);
+        assertThat(runs.get(0).getInserted()).isZero();
+        assertThat(runs.get(1).getStopReason()).isEqualTo("LAST_PAGE");
+        assertThat(runs.get(1).getPages()).isEqualTo(2);
+        assertThat(runs.get(1).getListingsFetched()).isEqualTo(LISTINGS);
+        assertThat(runs.get(1).getInserted()).isEqualTo(LISTINGS);
+        assertThat(runs.get(1).getBytesDownloaded()).isPositive();
+        assertThat(runs.get(1).getFetchLatencyP95Ms()).isNotNull();
+    }
+
+    @Test
+    void schedulerDiscoversEveryMarketplaceWithItsOwnBudget() {
+        assertThat(crawlScheduler.find("bazos")).isPresent();
+        assertThat(crawlScheduler.find("sbazar")).containsSame(sbazarService);
+        assertThat(crawlScheduler.getMarketplaces()).allMatch(MarketplaceService::isScrapingEnabled);
+
+        // Sbazar's two slots are independent of Bazos's
+        assertThat(crawlScheduler.tryStart("sbazar")).isTrue();
+        assertThat(crawlScheduler.tryStart("sbazar")).isTrue();
+        assertThat(crawlScheduler.tryStart("sbazar")).isFalse();
+        assertThat(crawlScheduler.tryStart("bazos")).isTrue();
+        crawlScheduler.finish("bazos");
+        crawlScheduler.finish("sbazar");
+        crawlScheduler.finish("sbazar");
+    }
+
+    private static HttpServer startStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/api/v1/items/search", SbazarScrapingServiceTest::search);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Newest-first listings 1000 down to 976, 20 per page
+    private static void search(HttpExchange exchange) throws IOException {
+        searchRequests.incrementAndGet();
+        int offset = 0;
+        int limit = 20;
+        URI uri = exchange.getRequestURI();
+        for (String param : uri.getQuery().split("&")) {
+            String[] pair = param.split("=");
+            if (pair[0].equals("offset")) {
+                offset = Integer.parseInt(pair[1]);
+            } else if (pair[0].equals("limit")) {
+                limit = Integer.parseInt(pair[1]);
+            }
+        }
+
+        StringBuilder json = new StringBuilder("{\"results\":[");
+        for (int i = offset; i < Math.min(LISTINGS, offset + limit); i++) {
+            int id = 1000 - i;
+            if (i > offset) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(id)
+                    .append(",\"name\":\"RTX 3060 ").append(id).append('"')
+                    .append(",\"price\":").append(5000 + i)
+                    .append(",\"description\":\"Graficka karta ").append(id).append('"')
+                    .append(",\"seo_name\":\"rtx-3060-").append(id).append('"')
+                    .append(",\"locality\":{\"district\":\"Praha\"}")
+                    .append(",\"create_date\":\"2026-10-01T12:00:00+02:00\"}");
+        }
+        json.append("]}");
+
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}